@@ -18,9 +18,13 @@ package com.marklogic.http;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.marklogic.io.IOHelper;
+import com.marklogic.io.LengthLimitedInputStream;
+
 public class BMBoundaryPartSplitter implements MultipartSplitter {
     private static final int MIN_BUFFER_SIZE = 2 * 1024;
     private static final int MAX_BUFFER_SIZE = 10 * 1024 * 1024;
@@ -39,6 +43,8 @@ public class BMBoundaryPartSplitter implements MultipartSplitter {
     private final ByteBuffer byteBuffer;
     private final int lowWaterMark;
 
+    private final boolean eagerReads;
+
     private boolean streamEOS = false;
     private int readableBytes = 0;
     private boolean atTerminalBoundary = false;
@@ -47,6 +53,20 @@ public class BMBoundaryPartSplitter implements MultipartSplitter {
 
     public BMBoundaryPartSplitter(InputStream inputStream, byte[] boundary, int bufSize, Logger loggerArg)
             throws IOException {
+        this(inputStream, boundary, bufSize, loggerArg, false);
+    }
+
+    /**
+     * @param eagerReads
+     *            If true, a read stops as soon as enough has arrived to see a boundary, rather
+     *            than going on to fill the buffer, so that what has arrived is available to the
+     *            reader at once. This costs more, smaller reads, and is only worth it for a
+     *            consumer that takes items one at a time as they arrive.
+     */
+    public BMBoundaryPartSplitter(InputStream inputStream, byte[] boundary, int bufSize, Logger loggerArg,
+            boolean eagerReads) throws IOException {
+        this.eagerReads = eagerReads;
+
         if (loggerArg == null) {
             logger = Logger.getLogger(getClass().getName());
         } else {
@@ -126,6 +146,49 @@ public class BMBoundaryPartSplitter implements MultipartSplitter {
         }
     }
 
+    public boolean drain(long limit) throws IOException {
+        if (streamEOS) {
+            return true;
+        }
+
+        // With a declared length there's no need to read anything to find out
+        if ((httpStream instanceof LengthLimitedInputStream)
+                && (((LengthLimitedInputStream)httpStream).getRemaining() > limit)) {
+            if (logger.isLoggable(Level.FINEST))
+                logger.finest("not draining " + ((LengthLimitedInputStream)httpStream).getRemaining() + " bytes");
+
+            return false;
+        }
+
+        long drained = 0;
+
+        while (true) {
+            long skipped = (drained < limit) ? httpStream.skip(limit - drained) : 0;
+
+            if (skipped > 0) {
+                drained += skipped;
+                continue;
+            }
+
+            // skip() may stop short without being at EOS, read a byte to be sure
+            if (httpStream.read() == -1) {
+                streamEOS = true;
+                break;
+            }
+
+            if (++drained > limit) {
+                break;
+            }
+        }
+
+        totalBytesRead += drained;
+
+        if (logger.isLoggable(Level.FINEST))
+            logger.finest("drained " + drained + " bytes, EOS=" + streamEOS);
+
+        return streamEOS;
+    }
+
     public boolean hasNext() throws IOException {
         flushToBoundary();
 
@@ -170,6 +233,11 @@ public class BMBoundaryPartSplitter implements MultipartSplitter {
             logger.finest("enter");
 
         while (remaining > 0) {
+            if ((totalRead > 0) && (readableBytes == 0)) {
+                // return what we have rather than block waiting for more
+                break;
+            }
+
             fillBuffer();
 
             if (readableBytes == 0) {
@@ -200,6 +268,38 @@ public class BMBoundaryPartSplitter implements MultipartSplitter {
         }
     }
 
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        long total = 0;
+
+        while (true) {
+            fillBuffer();
+
+            if (readableBytes == 0) {
+                if (!atBoundary) {
+                    throw new IOException("Premature End-Of-Stream on transfer.  Server connection lost?");
+                }
+
+                break;
+            }
+
+            ByteBuffer chunk = byteBuffer.duplicate();
+
+            chunk.limit(chunk.position() + readableBytes);
+
+            int written = IOHelper.writeFully(channel, chunk);
+
+            byteBuffer.position(chunk.position());
+            readableBytes = 0;
+            total += written;
+            totalBytesRead += written;
+        }
+
+        if (logger.isLoggable(Level.FINEST))
+            logger.finest("transferred " + total + " bytes");
+
+        return total;
+    }
+
     // ------------------------------------------------------------------------
 
     private int copyOutBytes(byte[] buffer, int offset, int length) {
@@ -219,7 +319,8 @@ public class BMBoundaryPartSplitter implements MultipartSplitter {
     private void fillBuffer() throws IOException {
         boolean logFinest = logger.isLoggable(Level.FINEST);
 
-        if (streamEOS || (byteBuffer.remaining() > lowWaterMark)) {
+        // When reading eagerly, hand over what is readable before waiting for more
+        if (streamEOS || (byteBuffer.remaining() > lowWaterMark) || (eagerReads && (readableBytes > 0))) {
             if (logFinest)
                 logger.finest("no read: EOS=" + streamEOS + ", remain=" + byteBuffer.remaining() + ", low-water="
                         + lowWaterMark);
@@ -258,6 +359,12 @@ public class BMBoundaryPartSplitter implements MultipartSplitter {
                 logger.finest(" added " + rc + " bytes to buffer: pos=" + byteBuffer.position() + ", remaining="
                         + byteBuffer.remaining());
             }
+
+            // Enough to see a whole boundary, don't wait for the buffer to fill up.
+            // Bytes that have arrived should be available to the reader now.
+            if (eagerReads && (byteBuffer.position() > lowWaterMark)) {
+                break;
+            }
         }
 
         byteBuffer.flip();
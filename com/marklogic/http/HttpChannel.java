@@ -26,6 +26,7 @@ import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.util.logging.Logger;
 
+import com.marklogic.io.FormEncoder;
 import com.marklogic.io.LengthLimitedInputStream;
 import com.marklogic.io.SslByteChannel;
 
@@ -126,6 +127,38 @@ public class HttpChannel {
         write(value.getBytes("UTF-8"));
     }
 
+    /**
+     * Write characters form-urlencoded, straight into the request buffer.
+     */
+    public void writeUrlEncoded(CharSequence value) throws IOException {
+        int len = value.length();
+        int i = 0;
+
+        while (i < len) {
+            if (bodyBuffer.remaining() < FormEncoder.MAX_BYTES_PER_CHAR) {
+                flushRequest(false);
+            }
+
+            i = FormEncoder.encode(value, i, len, bodyBuffer);
+        }
+    }
+
+    /**
+     * Write UTF-8 bytes form-urlencoded, straight into the request buffer.
+     */
+    public void writeUrlEncoded(byte[] bytes, int off, int len) throws IOException {
+        int end = off + len;
+        int i = off;
+
+        while (i < end) {
+            if (bodyBuffer.remaining() < 3) {
+                flushRequest(false);
+            }
+
+            i = FormEncoder.encode(bytes, i, end, bodyBuffer);
+        }
+    }
+
     public void write(ByteBuffer buffer) throws IOException {
         if (buffer.limit() < bodyBuffer.remaining()) {
             write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
@@ -170,6 +203,10 @@ public class HttpChannel {
         requestHeaders.setHeader("Content-Length", "" + length);
     }
 
+    public void setRequestContentLength(long length) {
+        requestHeaders.setHeader("Content-Length", "" + length);
+    }
+
     // --------------------------------------------------------------
 
     public String getResponseHeader(String headerName) throws IOException {
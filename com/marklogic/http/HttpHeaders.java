@@ -27,6 +27,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.List;
 
+import com.marklogic.io.StringCache;
 import com.marklogic.xcc.exceptions.UnexpectedResponseException;
 
 public class HttpHeaders {
@@ -41,9 +42,19 @@ public class HttpHeaders {
     private static final String REQUEST_VERSION_KEY = PREFIX + "HTTP-REQUEST-VERSION";
 
     private Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+    private StringCache stringCache = null;
+    private StringBuilder lineBuffer = null;
 
     // ---------------------------------------------------------------
 
+    /**
+     * Share the names and values of parsed headers through the given cache, rather than making
+     * new Strings for every header line.
+     */
+    public void setStringCache(StringCache stringCache) {
+        this.stringCache = stringCache;
+    }
+
     public void clear() {
         headers.clear();
     }
@@ -285,6 +296,12 @@ public class HttpHeaders {
     }
 
     public void parsePlainHeaders(InputStream is) throws IOException {
+        if (stringCache != null) {
+            parseCachedHeaders(is);
+
+            return;
+        }
+
         String line;
         try {
             while ((line = nextHeaderLine(is)) != null) {
@@ -305,10 +322,72 @@ public class HttpHeaders {
         }
     }
 
+    // As above, but names and values come from the cache and the line buffer is reused
+    private void parseCachedHeaders(InputStream is) throws IOException {
+        if (lineBuffer == null) {
+            lineBuffer = new StringBuilder(64);
+        }
+
+        StringBuilder line = lineBuffer;
+
+        try {
+            while (readHeaderLine(is, line)) {
+                int i = indexOf(line, ':');
+                String name;
+
+                if (lowerCaseAscii(line, i)) {
+                    name = stringCache.intern(line, 0, i);
+                } else {
+                    name = line.substring(0, i).toLowerCase();
+                }
+
+                setHeader(name, stringCache.intern(line, i + 2, line.length()));
+            }
+        } catch (Exception e) {
+            IOException newex = new IOException(
+                    "Error parsing HTTP headers: " + e.getMessage(), e);
+            throw newex;
+        }
+    }
+
+    private static int indexOf(StringBuilder sb, char c) {
+        for (int i = 0; i < sb.length(); i++) {
+            if (sb.charAt(i) == c) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    // Lower case the first len chars in place, false if they aren't all ASCII
+    private static boolean lowerCaseAscii(StringBuilder sb, int len) {
+        for (int i = 0; i < len; i++) {
+            char c = sb.charAt(i);
+
+            if (c > 0x7f) {
+                return false;
+            }
+
+            if ((c >= 'A') && (c <= 'Z')) {
+                sb.setCharAt(i, (char)(c + ('a' - 'A')));
+            }
+        }
+
+        return true;
+    }
+
     private String nextHeaderLine(InputStream is) 
     throws UnexpectedResponseException, IOException {
         StringBuilder sb = new StringBuilder(64);
 
+        return readHeaderLine(is, sb) ? sb.toString() : null;
+    }
+
+    private boolean readHeaderLine(InputStream is, StringBuilder sb)
+    throws UnexpectedResponseException, IOException {
+        sb.setLength(0);
+
         while (true) {
             int b = is.read();
 
@@ -329,7 +408,7 @@ public class HttpHeaders {
             sb.append((char)b);
         }
 
-        return (sb.length() > 0) ? sb.toString() : null;
+        return sb.length() > 0;
     }
 
     // ---------------------------------------------------------------
@@ -19,16 +19,36 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import com.marklogic.io.IOHelper;
+import com.marklogic.io.StringCache;
 
 public class MultipartBuffer {
     private InputStream partInputStream;
     private MultipartSplitter splitter;
     private HttpHeaders headers = new HttpHeaders();
+    private long partStartBytes = 0;
+    private long largestPartBytes = 0;
+    private long closedBytesRead = 0;
 
     public long getTotalBytesRead() {
+        if (splitter == null) {
+            return closedBytesRead;
+        }
+
         return splitter.getTotalBytesRead();
     }
 
+    /**
+     * The size, in bytes, of the largest part seen so far, including its headers. The current
+     * part is counted only as far as it has been read.
+     */
+    public long getLargestPartSize() {
+        if (partInputStream == null) {
+            return largestPartBytes;
+        }
+
+        return Math.max(largestPartBytes, splitter.getTotalBytesRead() - partStartBytes);
+    }
+
     // multipart boundary characters:
     //  \n--bbbbbbbb\n between parts,
     //  \n--bbbbbbbb--\n following last part
@@ -36,7 +56,18 @@ public class MultipartBuffer {
     // ---------------------------------------------------------------
 
     public MultipartBuffer(MultipartSplitter splitter) {
+        this(splitter, new StringCache(64));
+    }
+
+    /**
+     * @param stringCache
+     *            Shares the part header names and values that repeat from part to part, may be
+     *            shared with other buffers.
+     */
+    public MultipartBuffer(MultipartSplitter splitter, StringCache stringCache) {
         this.splitter = splitter;
+
+        headers.setStringCache(stringCache);
     }
 
     public String getHeader(String name) {
@@ -51,6 +82,32 @@ public class MultipartBuffer {
 
         if (splitter != null) {
             splitter.close();
+            closedBytesRead = splitter.getTotalBytesRead();
+            splitter = null;
+        }
+    }
+
+    /**
+     * Close this buffer, discarding at most <code>drainLimit</code> bytes of the unread remainder
+     * of the stream.
+     * 
+     * @return true if the stream was read to the end, false if the remainder was too large and was
+     *         left unread, in which case the underlying connection cannot be reused.
+     */
+    public boolean close(long drainLimit) throws IOException {
+        if (partInputStream != null) {
+            partInputStream.close();
+            partInputStream = null;
+        }
+
+        if (splitter == null) {
+            return true;
+        }
+
+        try {
+            return splitter.drain(drainLimit);
+        } finally {
+            closedBytesRead = splitter.getTotalBytesRead();
             splitter = null;
         }
     }
@@ -90,13 +147,18 @@ public class MultipartBuffer {
 
     public boolean next() throws IOException {
         if (!splitter.hasNext()) {
+            largestPartBytes = getLargestPartSize();
             partInputStream = null;
 
             return false;
         }
 
+        largestPartBytes = getLargestPartSize();
+
         splitter.next();
 
+        partStartBytes = splitter.getTotalBytesRead();
+
         partInputStream = new PartInputStream(splitter);
 
         headers.clear();
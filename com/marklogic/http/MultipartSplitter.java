@@ -16,6 +16,7 @@
 package com.marklogic.http;
 
 import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 
 public interface MultipartSplitter {
     public static final int DEF_BUFFER_SIZE = 16 * 1024;
@@ -28,7 +29,22 @@ public interface MultipartSplitter {
 
     int read(byte[] buffer, int offset, int length) throws IOException;
 
+    /**
+     * Write the rest of the current part to the channel, straight from the receive buffer.
+     * 
+     * @return The number of bytes written.
+     */
+    long transferTo(WritableByteChannel channel) throws IOException;
+
     void close() throws IOException;
+
+    /**
+     * Read and discard the rest of the stream, giving up once more than the given number of bytes
+     * would have to be discarded. Like {@link #close()}, the underlying stream is not closed.
+     * 
+     * @return true if the end of the stream was reached, false if it was left unread.
+     */
+    boolean drain(long limit) throws IOException;
     
     long getTotalBytesRead();
 }
@@ -16,6 +16,7 @@
 package com.marklogic.http;
 
 import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 
 public class NullPartSplitter implements MultipartSplitter {
     public long getTotalBytesRead() {
@@ -38,10 +39,18 @@ public class NullPartSplitter implements MultipartSplitter {
         return -1;
     }
 
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        return 0;
+    }
+
     public void close() {
         // do nothing
     }
 
+    public boolean drain(long limit) {
+        return true;
+    }
+
     public void setBufferSize(int size) {
         // do nothing
     }
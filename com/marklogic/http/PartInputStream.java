@@ -17,8 +17,11 @@ package com.marklogic.http;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
 
-public class PartInputStream extends InputStream {
+import com.marklogic.io.ChannelTransferable;
+
+public class PartInputStream extends InputStream implements ChannelTransferable {
     private MultipartSplitter splitter;
 
     /**
@@ -66,6 +69,13 @@ public class PartInputStream extends InputStream {
         return false;
     }
 
+    /**
+     * Writes the rest of this part to the channel directly from the splitter's buffer.
+     */
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        return splitter.transferTo(channel);
+    }
+
     /**
      * Reads the next byte of data from the input stream.
      */
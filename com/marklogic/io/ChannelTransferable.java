@@ -0,0 +1,32 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.io;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Implemented by input streams that can hand their remaining bytes to a channel straight from an
+ * internal buffer, without copying them through a caller-supplied array first.
+ */
+public interface ChannelTransferable {
+    /**
+     * Write all remaining bytes of this stream to the channel, which should be in blocking mode.
+     * 
+     * @return The number of bytes written.
+     */
+    long transferTo(WritableByteChannel channel) throws IOException;
+}
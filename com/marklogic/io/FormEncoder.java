@@ -0,0 +1,195 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes characters as <code>application/x-www-form-urlencoded</code> UTF-8 bytes, written
+ * straight into a buffer, with the same output as {@link java.net.URLEncoder} with UTF-8. Letters,
+ * digits and <code>*_.-</code> are kept, space becomes <code>+</code> and everything else is
+ * percent-encoded. An unpaired surrogate is encoded as <code>?</code>, as the JDK encoder does.
+ */
+public final class FormEncoder {
+    /** The most bytes one call to {@link #encode(CharSequence, int, int, ByteBuffer)} needs room for. */
+    public static final int MAX_BYTES_PER_CHAR = 12;
+
+    private static final boolean[] SAFE = new boolean[128];
+    private static final byte[] HEX = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F' };
+
+    static {
+        for (int c = 'a'; c <= 'z'; c++) {
+            SAFE[c] = true;
+        }
+
+        for (int c = 'A'; c <= 'Z'; c++) {
+            SAFE[c] = true;
+        }
+
+        for (int c = '0'; c <= '9'; c++) {
+            SAFE[c] = true;
+        }
+
+        SAFE['*'] = true;
+        SAFE['_'] = true;
+        SAFE['.'] = true;
+        SAFE['-'] = true;
+    }
+
+    private FormEncoder() {
+        // cannot be instantiated
+    }
+
+    /**
+     * The number of bytes the characters encode to.
+     */
+    public static int encodedLength(CharSequence s) {
+        int len = s.length();
+        int total = 0;
+
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+
+            if (c < 0x80) {
+                total += (SAFE[c] || (c == ' ')) ? 1 : 3;
+            } else if (c < 0x800) {
+                total += 6;
+            } else if (Character.isHighSurrogate(c) && (i + 1 < len) && Character.isLowSurrogate(s.charAt(i + 1))) {
+                total += 12;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                total += 3;
+            } else {
+                total += 9;
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Encode characters into the buffer, stopping at the end or when it has fewer than
+     * {@link #MAX_BYTES_PER_CHAR} bytes left.
+     *
+     * @return The index of the first character not encoded.
+     */
+    public static int encode(CharSequence s, int start, int end, ByteBuffer dst) {
+        int i = start;
+
+        while ((i < end) && (dst.remaining() >= MAX_BYTES_PER_CHAR)) {
+            char c = s.charAt(i++);
+
+            if (c < 0x80) {
+                if (SAFE[c]) {
+                    dst.put((byte)c);
+                } else if (c == ' ') {
+                    dst.put((byte)'+');
+                } else {
+                    putEscaped(dst, c);
+                }
+            } else if (c < 0x800) {
+                putEscaped(dst, 0xc0 | (c >> 6));
+                putEscaped(dst, 0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && (i < end) && Character.isLowSurrogate(s.charAt(i))) {
+                int cp = Character.toCodePoint(c, s.charAt(i++));
+
+                putEscaped(dst, 0xf0 | (cp >> 18));
+                putEscaped(dst, 0x80 | ((cp >> 12) & 0x3f));
+                putEscaped(dst, 0x80 | ((cp >> 6) & 0x3f));
+                putEscaped(dst, 0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                putEscaped(dst, '?');
+            } else {
+                putEscaped(dst, 0xe0 | (c >> 12));
+                putEscaped(dst, 0x80 | ((c >> 6) & 0x3f));
+                putEscaped(dst, 0x80 | (c & 0x3f));
+            }
+        }
+
+        return i;
+    }
+
+    /**
+     * Encode text that is already UTF-8 encoded into the buffer, stopping at the end or when it
+     * has fewer than three bytes left. The output is the same as for the characters the bytes
+     * encode.
+     *
+     * @return The index of the first byte not encoded.
+     */
+    public static int encode(byte[] src, int start, int end, ByteBuffer dst) {
+        int i = start;
+
+        while ((i < end) && (dst.remaining() >= 3)) {
+            int b = src[i++] & 0xff;
+
+            if ((b < 0x80) && SAFE[b]) {
+                dst.put((byte)b);
+            } else if (b == ' ') {
+                dst.put((byte)'+');
+            } else {
+                putEscaped(dst, b);
+            }
+        }
+
+        return i;
+    }
+
+    /**
+     * Encode all of the characters, appending the result.
+     */
+    public static void encode(CharSequence s, StringBuffer sb) {
+        int len = s.length();
+        int plain = 0;
+
+        // runs of safe characters are copied as they are
+        while ((plain < len) && (s.charAt(plain) < 0x80) && SAFE[s.charAt(plain)]) {
+            plain++;
+        }
+
+        if (plain == len) {
+            sb.append(s);
+
+            return;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(Math.min(3 * (len - plain), 8192) + MAX_BYTES_PER_CHAR);
+        byte[] bytes = buf.array();
+        char[] chars = new char[bytes.length];
+
+        sb.append(s, 0, plain);
+
+        for (int i = plain; i < len;) {
+            i = encode(s, i, len, buf);
+
+            int n = buf.position();
+
+            for (int j = 0; j < n; j++) {
+                chars[j] = (char)bytes[j];
+            }
+
+            sb.append(chars, 0, n);
+            buf.clear();
+        }
+    }
+
+    // ------------------------------------------------------------
+
+    private static void putEscaped(ByteBuffer dst, int b) {
+        dst.put((byte)'%');
+        dst.put(HEX[(b >> 4) & 0xf]);
+        dst.put(HEX[b & 0xf]);
+    }
+}
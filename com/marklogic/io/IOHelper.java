@@ -26,6 +26,8 @@ import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 public class IOHelper {
     private IOHelper() {
@@ -119,6 +121,42 @@ public class IOHelper {
         return (bos.toByteArray());
     }
 
+    /**
+     * Copy the rest of a stream to a channel. Streams that are {@link ChannelTransferable} write
+     * from their own buffer, others are copied through a single 64KB buffer.
+     */
+    public static long transferTo(InputStream inputStream, WritableByteChannel channel) throws IOException {
+        if (inputStream instanceof ChannelTransferable) {
+            return ((ChannelTransferable)inputStream).transferTo(channel);
+        }
+
+        byte[] bytes = new byte[64 * 1024];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long total = 0;
+        int rc;
+
+        while ((rc = inputStream.read(bytes)) != -1) {
+            buffer.clear().limit(rc);
+            writeFully(channel, buffer);
+            total += rc;
+        }
+
+        return total;
+    }
+
+    /**
+     * Write all remaining bytes of the buffer to a (blocking) channel.
+     */
+    public static int writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        int len = buffer.remaining();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        return len;
+    }
+
     // -------------------------------------------------------
 
     public static String genericExceptionMessage(Exception e) {
@@ -135,6 +173,11 @@ public class IOHelper {
 
     @SuppressWarnings("deprecation")
     public static String urlDecodeString(String value) {
+        // nothing to decode, which is usual for document URIs
+        if ((value.indexOf('%') == -1) && (value.indexOf('+') == -1)) {
+            return value;
+        }
+
         try {
             return URLDecoder.decode(value, "UTF-8");
         } catch (UnsupportedEncodingException e) {
@@ -171,9 +214,9 @@ public class IOHelper {
     }
 
     /**
-     * This is a "quick" URL encoder. If the string contains only ascii printable chars, then a
-     * lightweight routine is used to encode the string. Otherwise, the standard library URL encoder
-     * is used.
+     * This is a "quick" URL encoder. UTF-8 is encoded by {@link FormEncoder}. For other encodings,
+     * if the string contains only ascii printable chars, then a lightweight routine is used to
+     * encode the string. Otherwise, the standard library URL encoder is used.
      * 
      * @param s
      *            string to be "soft" encoded.
@@ -183,6 +226,12 @@ public class IOHelper {
      */
     public static void urlEncodeStringToStringBuffer(String s, StringBuffer sb, String encoding)
             throws UnsupportedEncodingException {
+        if ("UTF-8".equalsIgnoreCase(encoding)) {
+            FormEncoder.encode(s, sb);
+
+            return;
+        }
+
         if (containsNonAscii(s)) {
             // non-ascii chars seen, use the charset-aware library encoder
             sb.append(URLEncoder.encode(s, encoding));
@@ -34,6 +34,13 @@ public class LengthLimitedInputStream extends InputStream {
         this.limit = (limit < 0) ? Long.MAX_VALUE : limit;
     }
 
+    /**
+     * The number of bytes that may still be read before the limit is reached.
+     */
+    public long getRemaining() {
+        return limitReached ? 0 : (limit - readCount);
+    }
+
     @Override
     public int read() throws IOException {
         if (checkLimit()) {
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.io;
+
+/**
+ * A bounded cache of Strings, used to share one instance among the many equal Strings that
+ * repeat through a result, such as header names, type names and document paths. It is a fixed
+ * array of slots indexed by hash, a new String simply replaces whatever was in its slot. No
+ * locks are needed: a slot only ever holds a complete String, and a lost update just costs a
+ * later miss.
+ */
+public final class StringCache {
+    /** Longer values are not worth keeping, they rarely repeat. */
+    public static final int MAX_LENGTH = 256;
+
+    private final String[] slots;
+    private final int mask;
+
+    /**
+     * @param size
+     *            The number of slots, rounded up to a power of two.
+     */
+    public StringCache(int size) {
+        int n = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+
+        slots = new String[n];
+        mask = n - 1;
+    }
+
+    /**
+     * Return the cached String equal to the given characters, making and caching one if need be.
+     * No String is made if an equal one is cached.
+     */
+    public String intern(CharSequence chars, int start, int end) {
+        int length = end - start;
+
+        if (length > MAX_LENGTH) {
+            return chars.subSequence(start, end).toString();
+        }
+
+        int hash = 0;
+
+        for (int i = start; i < end; i++) {
+            hash = (31 * hash) + chars.charAt(i);
+        }
+
+        int slot = spread(hash) & mask;
+        String cached = slots[slot];
+
+        if ((cached != null) && (cached.length() == length) && regionMatches(cached, chars, start)) {
+            return cached;
+        }
+
+        String value = chars.subSequence(start, end).toString();
+
+        slots[slot] = value;
+
+        return value;
+    }
+
+    /**
+     * Return the cached String equal to the given one, caching it if there is none.
+     */
+    public String intern(String value) {
+        if ((value == null) || (value.length() > MAX_LENGTH)) {
+            return value;
+        }
+
+        int slot = spread(value.hashCode()) & mask;
+        String cached = slots[slot];
+
+        if ((cached != null) && cached.equals(value)) {
+            return cached;
+        }
+
+        slots[slot] = value;
+
+        return value;
+    }
+
+    // ---------------------------------------------------------------
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean regionMatches(String cached, CharSequence chars, int start) {
+        for (int i = 0; i < cached.length(); i++) {
+            if (cached.charAt(i) != chars.charAt(start + i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
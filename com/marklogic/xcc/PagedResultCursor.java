@@ -0,0 +1,92 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc;
+
+import java.math.BigInteger;
+
+import com.marklogic.xcc.exceptions.RequestException;
+
+/**
+ * <p>
+ * Iterates over the result of a {@link Request} one page at a time, submitting the request once
+ * per page with a position and count that select that page of the result. All pages are
+ * evaluated at the same point-in-time, so that they are consistent with each other. While one
+ * page is being consumed the next is fetched on another connection. Iteration ends when the
+ * server returns a page shorter than the page size.
+ * </p>
+ * <p>
+ * A cursor must be closed when it is no longer needed, unless it has been iterated to the end.
+ * Like a {@link ResultSequence}, a cursor is not thread-safe.
+ * </p>
+ *
+ * @see Session#submitRequestPaged(Request, long)
+ */
+public interface PagedResultCursor {
+    /**
+     * True if there is another item in the result. May block while the next page is fetched.
+     *
+     * @return true if {@link #next()} will return an item.
+     * @throws RequestException
+     *             If fetching the next page fails.
+     * @throws IllegalStateException
+     *             If this cursor has been closed.
+     */
+    boolean hasNext() throws RequestException;
+
+    /**
+     * Return the next item in the result, fetching the next page if necessary.
+     *
+     * @return The next {@link ResultItem}, or null if there are no more.
+     * @throws RequestException
+     *             If fetching the next page fails.
+     * @throws IllegalStateException
+     *             If this cursor has been closed.
+     */
+    ResultItem next() throws RequestException;
+
+    /**
+     * The number of items requested per page.
+     *
+     * @return The page size.
+     */
+    long getPageSize();
+
+    /**
+     * The number of pages fetched so far and handed out by {@link #next()}.
+     *
+     * @return A page count.
+     */
+    int getPageCount();
+
+    /**
+     * The point-in-time at which every page is evaluated.
+     *
+     * @return A server timestamp.
+     */
+    BigInteger getPointInTime();
+
+    /**
+     * Release the current page and abandon any page being fetched in advance.
+     */
+    void close();
+
+    /**
+     * True if this cursor has been closed, or has been iterated to the end.
+     *
+     * @return true if closed.
+     */
+    boolean isClosed();
+}
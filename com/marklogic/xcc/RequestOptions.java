@@ -57,12 +57,25 @@ public class RequestOptions {
     private int requestTimeLimit = -1;
     private boolean cacheResult = true;
     private boolean defaultCacheResult = true;
+    private boolean cacheResultLazy = false;
+    private boolean defaultCacheResultLazy = true;
     private String requestName;
     private Locale locale = null;
     private TimeZone timeZone = null;
     private BigInteger effectivePointInTime = null;
     private int resultBufferSize = 0;
+    private boolean resultBufferSizeAdaptive = false;
+    private boolean defaultResultBufferSizeAdaptive = true;
+    private int streamingPrefetchItems = -1;
+    private long streamingPrefetchBytes = -1;
+    private long streamingDrainThreshold = -1;
+    private boolean streamingItemReuse = false;
+    private boolean defaultStreamingItemReuse = true;
+    private int parallelDecodeThreshold = -1;
+    private long cachedResultMemoryBudget = -1;
     private String defaultXQueryVersion = null;
+    // bumped by every change, so that effective options merged from this object can be kept
+    private int version = 0;
 
     // stuff that's been left out of 3.1, but will be added later
 //	private boolean logResultWarnings = true;
@@ -72,6 +85,43 @@ public class RequestOptions {
 
     // -------------------------------------------------------
 
+    public RequestOptions() {
+    }
+
+    /**
+     * Make a copy of the given options, with the same values set or left as the default.
+     * 
+     * @param other
+     *            The options to copy.
+     */
+    public RequestOptions(RequestOptions other) {
+        maxAutoRetry = other.maxAutoRetry;
+        autoRetryDelayMillis = other.autoRetryDelayMillis;
+        timeoutMillis = other.timeoutMillis;
+        requestTimeLimit = other.requestTimeLimit;
+        cacheResult = other.cacheResult;
+        defaultCacheResult = other.defaultCacheResult;
+        cacheResultLazy = other.cacheResultLazy;
+        defaultCacheResultLazy = other.defaultCacheResultLazy;
+        requestName = other.requestName;
+        locale = other.locale;
+        timeZone = other.timeZone;
+        effectivePointInTime = other.effectivePointInTime;
+        resultBufferSize = other.resultBufferSize;
+        resultBufferSizeAdaptive = other.resultBufferSizeAdaptive;
+        defaultResultBufferSizeAdaptive = other.defaultResultBufferSizeAdaptive;
+        streamingPrefetchItems = other.streamingPrefetchItems;
+        streamingPrefetchBytes = other.streamingPrefetchBytes;
+        streamingDrainThreshold = other.streamingDrainThreshold;
+        streamingItemReuse = other.streamingItemReuse;
+        defaultStreamingItemReuse = other.defaultStreamingItemReuse;
+        parallelDecodeThreshold = other.parallelDecodeThreshold;
+        cachedResultMemoryBudget = other.cachedResultMemoryBudget;
+        defaultXQueryVersion = other.defaultXQueryVersion;
+    }
+
+    // -------------------------------------------------------
+
     /**
      * <p>
      * Indicates whether the {@link ResultSequence} should be cached when read from the server. The
@@ -95,6 +145,41 @@ public class RequestOptions {
     public void setCacheResult(boolean cacheResult) {
         this.cacheResult = cacheResult;
         defaultCacheResult = false;
+        version++;
+    }
+
+    /**
+     * Indicates whether cached {@link ResultSequence}s decode their items lazily. The default is
+     * false.
+     * 
+     * @return true if items are decoded on first access, false if they are all decoded up front.
+     * @see #setCacheResultLazy(boolean)
+     */
+    public boolean getCacheResultLazy() {
+        return cacheResultLazy;
+    }
+
+    /**
+     * <p>
+     * When true, a cached {@link ResultSequence} stores each result item as its raw bytes, back to
+     * back in one buffer, and only decodes an item (into a String, date, number and so on) when it
+     * is accessed through {@link ResultSequence#next()}, {@link ResultSequence#resultItemAt(int)}
+     * or similar. The most recently accessed items are kept decoded. This saves time and memory
+     * when only some of the items of a large cached result are actually used.
+     * </p>
+     * <p>
+     * The buffer is on the heap unless the <code>xcc.result.arena.direct</code> system property
+     * is set to true. It counts against {@link #setCachedResultMemoryBudget(long)} by the bytes it
+     * holds.
+     * </p>
+     * 
+     * @param lazy
+     *            Set to true to decode cached items on access.
+     */
+    public void setCacheResultLazy(boolean lazy) {
+        this.cacheResultLazy = lazy;
+        defaultCacheResultLazy = false;
+        version++;
     }
 
     // -------------------------------------------------------
@@ -129,6 +214,7 @@ public class RequestOptions {
      */
     public void setMaxAutoRetry(int maxAutoRetry) {
         this.maxAutoRetry = maxAutoRetry;
+        version++;
     }
 
     /**
@@ -149,6 +235,7 @@ public class RequestOptions {
      */
     public void setAutoRetryDelayMillis(int autoRetryDelayMillis) {
         this.autoRetryDelayMillis = autoRetryDelayMillis;
+        version++;
     }
 
     // -------------------------------------------------------
@@ -205,6 +292,271 @@ public class RequestOptions {
      */
     public void setResultBufferSize(int resultBufferSize) {
         this.resultBufferSize = resultBufferSize;
+        version++;
+    }
+
+    /**
+     * Indicates whether {@link ResultSequence} buffers are sized adaptively. The default is false.
+     * 
+     * @return true if buffer sizes are derived from previously observed results, false if
+     *         {@link #getResultBufferSize()} is used as is.
+     * @see #setResultBufferSizeAdaptive(boolean)
+     */
+    public boolean getResultBufferSizeAdaptive() {
+        return resultBufferSizeAdaptive;
+    }
+
+    /**
+     * <p>
+     * Enable or disable adaptive sizing of {@link ResultSequence} buffers. When enabled, XCC keeps
+     * a moving histogram of the part sizes and total response sizes seen for each request name on
+     * the {@link ContentSource} (unnamed requests share one histogram) and sizes the result
+     * buffers to match. Queries returning a few small atomic values will then use small buffers,
+     * while queries returning large documents will use buffers big enough to avoid repeated
+     * compaction.
+     * </p>
+     * <p>
+     * Until a few results have been observed, {@link #getResultBufferSize()} is used. Setting
+     * distinct request names ({@link #setRequestName(String)}) for queries with very different
+     * result shapes will give more accurate sizing.
+     * </p>
+     * 
+     * @param adaptive
+     *            Set to true to size buffers from observed results, false to always use
+     *            {@link #getResultBufferSize()}.
+     */
+    public void setResultBufferSizeAdaptive(boolean adaptive) {
+        this.resultBufferSizeAdaptive = adaptive;
+        defaultResultBufferSizeAdaptive = false;
+        version++;
+    }
+
+    // -------------------------------------------------------
+
+    /**
+     * The number of items a streaming {@link ResultSequence} reads ahead of the consumer. A value
+     * of zero means no prefetching, -1 means use the default (which is zero).
+     * 
+     * @return The currently set prefetch depth, in items.
+     * @see #setStreamingPrefetchItems(int)
+     */
+    public int getStreamingPrefetchItems() {
+        return streamingPrefetchItems;
+    }
+
+    /**
+     * <p>
+     * Set the number of items a streaming (non-cached) {@link ResultSequence} should read ahead of
+     * the consumer. When greater than zero, a background reader parses and caches up to this many
+     * items into a bounded queue while the application is processing the current one, so that
+     * network transfer, decoding and application work overlap. The connection is released as soon
+     * as the end of the result has been read, even if queued items have not yet been consumed.
+     * </p>
+     * <p>
+     * Because prefetched items are cached, each of them must fit in memory. Use
+     * {@link #setStreamingPrefetchBytes(long)} to also bound the queue by size. This option has no
+     * effect on cached result sequences.
+     * </p>
+     * <p>
+     * Readers share a pool of daemon threads, sized by the <code>xcc.prefetch.threads</code>
+     * system property (default: the number of processors, at least 4). A reader only holds a
+     * thread while it reads. Closing a sequence while its reader is blocked on the socket drops
+     * the connection rather than waiting for the read.
+     * </p>
+     * 
+     * @param items
+     *            The number of items to read ahead. Zero disables prefetching, -1 means use the
+     *            default.
+     */
+    public void setStreamingPrefetchItems(int items) {
+        this.streamingPrefetchItems = items;
+        version++;
+    }
+
+    /**
+     * The maximum number of bytes a streaming {@link ResultSequence} will hold in its prefetch
+     * queue. A value of zero means that only {@link #getStreamingPrefetchItems()} applies, -1 means
+     * use the default (which is zero).
+     * 
+     * @return The currently set prefetch byte limit.
+     */
+    public long getStreamingPrefetchBytes() {
+        return streamingPrefetchBytes;
+    }
+
+    /**
+     * Set the maximum number of (undecoded) result bytes a streaming {@link ResultSequence} may
+     * hold in its prefetch queue. The reader always queues at least one item, however large. Has
+     * no effect unless {@link #setStreamingPrefetchItems(int)} enables prefetching.
+     * 
+     * @param bytes
+     *            A number of bytes, zero for no byte limit, or -1 to use the default.
+     */
+    public void setStreamingPrefetchBytes(long bytes) {
+        this.streamingPrefetchBytes = bytes;
+        version++;
+    }
+
+    /**
+     * The maximum number of unread bytes a streaming {@link ResultSequence} will drain when it is
+     * closed early. A value of zero means always drain, -1 means use the default (which is zero).
+     * 
+     * @return The currently set drain threshold, in bytes.
+     */
+    public long getStreamingDrainThreshold() {
+        return streamingDrainThreshold;
+    }
+
+    /**
+     * <p>
+     * Set the maximum number of unread result bytes a streaming {@link ResultSequence} will read
+     * and discard when it is closed before the end of the result, so that its connection can be
+     * reused. If the response declares a length and more than this many bytes remain, or if this
+     * many bytes have been discarded and the end has still not been reached, the connection is
+     * closed and dropped instead. Closing the connection also stops the server from sending the
+     * rest of the result.
+     * </p>
+     * <p>
+     * A small threshold is appropriate when applications routinely read only the start of large
+     * results. Reopening a connection is usually much cheaper than transferring megabytes that
+     * will never be looked at.
+     * </p>
+     * 
+     * @param bytes
+     *            A number of bytes, zero to always drain, or -1 to use the default.
+     */
+    public void setStreamingDrainThreshold(long bytes) {
+        this.streamingDrainThreshold = bytes;
+        version++;
+    }
+
+    /**
+     * Indicates whether a streaming {@link ResultSequence} hands out the same {@link ResultItem}
+     * object for every item. The default is false.
+     * 
+     * @return true if result items are reused, false if not.
+     * @see #setStreamingItemReuse(boolean)
+     */
+    public boolean getStreamingItemReuse() {
+        return streamingItemReuse;
+    }
+
+    /**
+     * <p>
+     * Set whether a streaming {@link ResultSequence} reuses one {@link ResultItem}, and one item
+     * object for each of the common atomic types (string, untypedAtomic, integer and double), for
+     * every item it returns, rather than making new ones. Iterating over a long result of atomic
+     * values then makes almost no garbage.
+     * </p>
+     * <p>
+     * A reused item is valid only until the next call to <code>next()</code> on the sequence or
+     * its iterator, after which it holds the next value.
+     * Applications must copy out whatever they need (with {@link ResultItem#asString()}, for
+     * instance) rather than keep the item itself. {@link ResultSequence#toCached()} and
+     * {@link ResultSequence#toResultItemArray()} make independent items as usual. This option has
+     * no effect on cached results, nor on streaming results read ahead with
+     * {@link #setStreamingPrefetchItems(int)}, whose items are necessarily distinct.
+     * </p>
+     * <p>
+     * Reuse cannot work where items outlive the next read, so it is turned off for the rest of a
+     * sequence once {@link ResultSequence#stream()} is called on it, and for results published by
+     * {@link Session#submitRequestPublisher(Request)}. Their items are always distinct.
+     * </p>
+     * <p>
+     * To find code that keeps items too long, run with the system property
+     * <code>xcc.streaming.reuse.check</code> set to true. Nothing is then reused, and a
+     * {@link ResultItem} used after the sequence has moved past it throws
+     * {@link IllegalStateException}.
+     * </p>
+     * 
+     * @param reuse
+     *            Set to true to reuse result items, false to make a new one for each item.
+     */
+    public void setStreamingItemReuse(boolean reuse) {
+        this.streamingItemReuse = reuse;
+        defaultStreamingItemReuse = false;
+        version++;
+    }
+
+    // -------------------------------------------------------
+
+    /**
+     * The number of items at which a cached {@link ResultSequence} starts decoding items in
+     * parallel. A value of zero means never, -1 means use the default (which is zero).
+     * 
+     * @return The currently set threshold, in items.
+     * @see #setParallelDecodeThreshold(int)
+     */
+    public int getParallelDecodeThreshold() {
+        return parallelDecodeThreshold;
+    }
+
+    /**
+     * <p>
+     * Set the number of items at which a cached {@link ResultSequence} hands decoding of its
+     * items over to the common fork-join pool. In this mode, the thread reading the response
+     * only splits it into raw parts, and the parts are parsed into {@link com.marklogic.xcc.types.XdmItem}s
+     * on other cores while the rest of the response is still arriving. Item order is preserved.
+     * Results with fewer items than the threshold are decoded on the reading thread as usual, so
+     * small results do not pay for the hand-off.
+     * </p>
+     * <p>
+     * Raw parts are held in memory until decoded, so a cached result may briefly need more
+     * memory than it would otherwise. This option has no effect on streaming result sequences.
+     * </p>
+     * <p>
+     * Parts are handed over in batches of 32 and the threshold is only checked when a batch is
+     * full, so a result with up to 31 items more than the threshold may still be decoded
+     * entirely on the reading thread. Decoding
+     * silently stays on the reading thread when {@link #setCacheResultLazy(boolean)} is set, or
+     * when a memory budget applies, either {@link #setCachedResultMemoryBudget(long)} or the one
+     * shared by the ContentSource.
+     * </p>
+     * 
+     * @param threshold
+     *            The minimum number of items for parallel decoding. Zero disables it, -1 means
+     *            use the default.
+     */
+    public void setParallelDecodeThreshold(int threshold) {
+        this.parallelDecodeThreshold = threshold;
+        version++;
+    }
+
+    // -------------------------------------------------------
+
+    /**
+     * The number of bytes of item data a cached {@link ResultSequence} may hold in memory. A value
+     * of zero means no limit, -1 means use the default (which is zero).
+     * 
+     * @return The currently set budget, in bytes.
+     * @see #setCachedResultMemoryBudget(long)
+     */
+    public long getCachedResultMemoryBudget() {
+        return cachedResultMemoryBudget;
+    }
+
+    /**
+     * <p>
+     * Set the number of bytes of item data a cached {@link ResultSequence} may hold in memory.
+     * Once the budget is used up, the remaining items are written, undecoded, to a temporary file
+     * and are decoded again each time they are accessed. {@link ResultSequence#size()},
+     * {@link ResultSequence#resultItemAt(int)} and {@link ResultSequence#rewind()} keep working
+     * as usual, and the file is deleted when the ResultSequence is closed.
+     * </p>
+     * <p>
+     * A budget may also be set for all cached results of a ContentSource that are being read at
+     * the same time, with the <code>xcc.result.cache.memory.limit</code> system property (in
+     * bytes). A result gives its share of that budget back once it has been read in full. Items
+     * spill as soon as either budget is exhausted. Parallel decoding (
+     * {@link #setParallelDecodeThreshold(int)}) is not used while a budget is in effect.
+     * </p>
+     * 
+     * @param bytes
+     *            The budget in bytes, zero for no limit, or -1 to use the default.
+     */
+    public void setCachedResultMemoryBudget(long bytes) {
+        this.cachedResultMemoryBudget = bytes;
+        version++;
     }
 
     // -------------------------------------------------------
@@ -255,6 +607,7 @@ public class RequestOptions {
      */
     public void setTimeoutMillis(int timeoutMillis) {
         this.timeoutMillis = timeoutMillis;
+        version++;
     }
 
     /**
@@ -287,6 +640,7 @@ public class RequestOptions {
         }
 
         this.requestName = requestName;
+        version++;
     }
 
     // validation for above method
@@ -329,6 +683,7 @@ public class RequestOptions {
      */
     public void setLocale(Locale locale) {
         this.locale = locale;
+        version++;
     }
 
     /**
@@ -350,6 +705,7 @@ public class RequestOptions {
      */
     public void setTimeZone(TimeZone timeZone) {
         this.timeZone = timeZone;
+        version++;
     }
 
     /**
@@ -392,6 +748,7 @@ public class RequestOptions {
      */
     public void setEffectivePointInTime(BigInteger effectivePointInTime) {
         this.effectivePointInTime = effectivePointInTime;
+        version++;
     }
 
     /**
@@ -417,6 +774,7 @@ public class RequestOptions {
      */
     public void setDefaultXQueryVersion(String versionString) {
         defaultXQueryVersion = versionString;
+        version++;
     }
 
     /**
@@ -449,6 +807,7 @@ public class RequestOptions {
      */
     public void setRequestTimeLimit(int requestTimeLimit) {
         this.requestTimeLimit = requestTimeLimit;
+        version++;
     }
 
     // -------------------------------------------------------------
@@ -515,9 +874,33 @@ public class RequestOptions {
             if (!other.defaultCacheResult) {
                 cacheResult = other.cacheResult;
             }
+            if (!other.defaultCacheResultLazy) {
+                cacheResultLazy = other.cacheResultLazy;
+            }
             if (other.resultBufferSize != 0) {
                 resultBufferSize = other.resultBufferSize;
             }
+            if (!other.defaultResultBufferSizeAdaptive) {
+                resultBufferSizeAdaptive = other.resultBufferSizeAdaptive;
+            }
+            if (other.streamingPrefetchItems != -1) {
+                streamingPrefetchItems = other.streamingPrefetchItems;
+            }
+            if (other.streamingPrefetchBytes != -1) {
+                streamingPrefetchBytes = other.streamingPrefetchBytes;
+            }
+            if (other.streamingDrainThreshold != -1) {
+                streamingDrainThreshold = other.streamingDrainThreshold;
+            }
+            if (!other.defaultStreamingItemReuse) {
+                streamingItemReuse = other.streamingItemReuse;
+            }
+            if (other.parallelDecodeThreshold != -1) {
+                parallelDecodeThreshold = other.parallelDecodeThreshold;
+            }
+            if (other.cachedResultMemoryBudget != -1) {
+                cachedResultMemoryBudget = other.cachedResultMemoryBudget;
+            }
             if (other.defaultXQueryVersion != null) {
                 defaultXQueryVersion = other.defaultXQueryVersion;
             }
@@ -550,6 +933,35 @@ public class RequestOptions {
         if (resultBufferSize == 0) {
             resultBufferSize = MultipartSplitter.DEF_BUFFER_SIZE;
         }
+        if (streamingPrefetchItems == -1) {
+            streamingPrefetchItems = 0;
+        }
+        if (streamingPrefetchBytes == -1) {
+            streamingPrefetchBytes = 0;
+        }
+        if (streamingDrainThreshold == -1) {
+            streamingDrainThreshold = 0;
+        }
+        if (parallelDecodeThreshold == -1) {
+            parallelDecodeThreshold = 0;
+        }
+        if (cachedResultMemoryBudget == -1) {
+            cachedResultMemoryBudget = 0;
+        }
+
+        version++;
+    }
+
+    /**
+     * A count of the changes made to this object, by its setters or by
+     * {@link #applyEffectiveValues(RequestOptions[])}. Effective options merged from this object
+     * are still current if its version has not changed since. This method is intended for
+     * internal use.
+     * 
+     * @return The current version.
+     */
+    public int getVersion() {
+        return version;
     }
 
     // ---------------------------------------------------------
@@ -15,8 +15,19 @@
  */
 package com.marklogic.xcc;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import com.marklogic.io.IOHelper;
 import com.marklogic.xcc.types.XdmItem;
 import com.marklogic.xcc.types.XdmSequence;
 
@@ -210,6 +221,42 @@ public interface ResultSequence extends XdmSequence<ResultItem> {
      */
     Iterator<ResultItem> iterator();
 
+    /**
+     * <p>
+     * Returns a sequential java.util.stream.Stream over the {@link ResultItem}s of this
+     * ResultSequence.
+     * </p>
+     * <p>
+     * For a cached ResultSequence the stream is sized and splits cheaply, so it may be made
+     * parallel. For a streaming ResultSequence, items are decoded lazily as the stream pulls them,
+     * with the same restrictions as {@link #next()}: an item's content must be consumed before the
+     * stream advances. Closing the stream closes this ResultSequence and releases its
+     * connection. If a streaming stream is made parallel, the items handed to other threads are
+     * cached first.
+     * </p>
+     * 
+     * <p>
+     * The default implementation is a sequential stream over {@link #iterator()}, which closes
+     * this ResultSequence when the stream is closed.
+     * </p>
+     * 
+     * @return A Stream of the items in this ResultSequence.
+     * @throws IllegalStateException
+     *             If this ResultSequence is closed.
+     */
+    default Stream<ResultItem> stream() {
+        Spliterator<ResultItem> spliterator = Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED
+                | Spliterator.NONNULL);
+
+        final ResultSequence sequence = this;
+
+        return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+            public void run() {
+                sequence.close();
+            }
+        });
+    }
+
     /**
      * Produce a cached version of this ResultSequence. If the provided ResultSequence is already
      * cached ({@link #isCached()} returns true), then nothing is done and this instance returns
@@ -254,6 +301,210 @@ public interface ResultSequence extends XdmSequence<ResultItem> {
      */
     ResultItem[] toResultItemArray();
 
+    /**
+     * <p>
+     * Returns the values of the (remaining) items of this ResultSequence as an array of longs.
+     * Each item's string value must be a valid long, as for {@link Long#parseLong(String)}.
+     * </p>
+     * <p>
+     * If the ResultSequence is streaming, values are parsed straight from the result data, no
+     * {@link ResultItem} is created for them, and the ResultSequence is consumed and closed. This
+     * makes it the cheapest way to fetch a large number of xs:integer values.
+     * </p>
+     * 
+     * <p>
+     * The default implementation parses the string value of each remaining item in turn, and
+     * closes this ResultSequence afterwards if it is not cached.
+     * </p>
+     * 
+     * @return An array with one long per item.
+     * @throws NumberFormatException
+     *             If an item's value cannot be represented as a long.
+     * @throws IllegalStateException
+     *             If this ResultSequence is closed.
+     * @throws com.marklogic.xcc.exceptions.StreamingResultException
+     *             If an error occurs reading streaming result data.
+     */
+    default long[] asLongArray() {
+        long[] values = new long[64];
+        int size = 0;
+
+        while (hasNext()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            values[size++] = Long.parseLong(next().asString());
+        }
+
+        if (!isCached()) {
+            close();
+        }
+
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * <p>
+     * Returns the values of the (remaining) items of this ResultSequence as an array of doubles.
+     * Each item's string value must be a valid xs:double lexical value (which includes xs:float,
+     * xs:decimal and xs:integer values).
+     * </p>
+     * <p>
+     * If the ResultSequence is streaming, values are parsed straight from the result data, no
+     * {@link ResultItem} is created for them, and the ResultSequence is consumed and closed.
+     * </p>
+     * 
+     * <p>
+     * The default implementation parses the string value of each remaining item in turn, and
+     * closes this ResultSequence afterwards if it is not cached.
+     * </p>
+     * 
+     * @return An array with one double per item.
+     * @throws NumberFormatException
+     *             If an item's value is not a valid double.
+     * @throws IllegalStateException
+     *             If this ResultSequence is closed.
+     * @throws com.marklogic.xcc.exceptions.StreamingResultException
+     *             If an error occurs reading streaming result data.
+     */
+    default double[] asDoubleArray() {
+        double[] values = new double[64];
+        int size = 0;
+
+        while (hasNext()) {
+            String value = next().asString();
+
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            // the XML Schema spellings of infinity, which Double doesn't know
+            if (value.equals("INF") || value.equals("+INF")) {
+                values[size++] = Double.POSITIVE_INFINITY;
+            } else if (value.equals("-INF")) {
+                values[size++] = Double.NEGATIVE_INFINITY;
+            } else {
+                values[size++] = Double.parseDouble(value);
+            }
+        }
+
+        if (!isCached()) {
+            close();
+        }
+
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * <p>
+     * Returns the string values of the (remaining) items of this ResultSequence, packed into a
+     * single {@link StringColumn}. This holds far less memory than an array of Strings or of
+     * {@link ResultItem}s for a large number of short values.
+     * </p>
+     * <p>
+     * If the ResultSequence is streaming, values are copied straight from the result data, no
+     * {@link ResultItem} is created for them, and the ResultSequence is consumed and closed.
+     * </p>
+     * 
+     * <p>
+     * The default implementation holds the string value of each remaining item as a String, and
+     * closes this ResultSequence afterwards if it is not cached.
+     * </p>
+     * 
+     * @return A StringColumn with one value per item.
+     * @throws IllegalStateException
+     *             If this ResultSequence is closed.
+     * @throws com.marklogic.xcc.exceptions.StreamingResultException
+     *             If an error occurs reading streaming result data.
+     */
+    default StringColumn asStringColumn() {
+        List<String> list = new ArrayList<String>();
+
+        while (hasNext()) {
+            list.add(next().asString());
+        }
+
+        if (!isCached()) {
+            close();
+        }
+
+        final String[] values = list.toArray(new String[list.size()]);
+
+        return new StringColumn() {
+            public int size() {
+                return values.length;
+            }
+
+            public String get(int index) {
+                return values[index];
+            }
+
+            public int length(int index) {
+                return values[index].length();
+            }
+
+            public int getChars(int index, char[] dest, int destOffset) {
+                String value = values[index];
+
+                value.getChars(0, value.length(), dest, destOffset);
+
+                return value.length();
+            }
+
+            public String[] toArray() {
+                return values.clone();
+            }
+        };
+    }
+
+    /**
+     * <p>
+     * Write the values of the (remaining) items of this ResultSequence, UTF-8 encoded, to a
+     * channel, with an optional separator between them. Each item is written with
+     * {@link ResultItem#transferTo(WritableByteChannel)}, so the items of a streaming
+     * ResultSequence go from the result receive buffer to the channel without being decoded or
+     * buffered. This is the fastest way to export a large result to a file or socket.
+     * </p>
+     * <p>
+     * If the ResultSequence is streaming, it is consumed and closed.
+     * </p>
+     * <p>
+     * The default implementation writes each item, as returned by {@link #iterator()}, with
+     * {@link ResultItem#transferTo(WritableByteChannel)}.
+     * </p>
+     * 
+     * @param channel
+     *            An open channel in blocking mode. It will not be closed by this method.
+     * @param separator
+     *            A String to write between items, or null for none.
+     * @return The number of bytes written.
+     * @throws IOException
+     *             If writing to the channel fails.
+     * @throws IllegalStateException
+     *             If this ResultSequence is closed.
+     * @throws com.marklogic.xcc.exceptions.StreamingResultException
+     *             If an error occurs reading streaming result data.
+     */
+    default long writeTo(WritableByteChannel channel, String separator) throws IOException {
+        byte[] sep = ((separator == null) || (separator.length() == 0)) ? null : separator.getBytes("UTF-8");
+        long total = 0;
+        boolean first = true;
+
+        for (Iterator<ResultItem> it = iterator(); it.hasNext();) {
+            ResultItem item = it.next();
+
+            if ((sep != null) && !first) {
+                total += IOHelper.writeFully(channel, ByteBuffer.wrap(sep));
+            }
+
+            total += item.transferTo(channel);
+            first = false;
+        }
+
+        return total;
+    }
+
     /**
      * Return the {@link ResultSequence} for an alternate {@link ResultChannelName}. The
      * {@link ResultSequence} returned by {@link Session#submitRequest(Request)} is the sequence of
@@ -19,6 +19,7 @@ import java.io.Closeable;
 import java.math.BigInteger;
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.Flow;
 import java.util.logging.Logger;
 import javax.transaction.xa.XAResource;
 
@@ -209,6 +210,82 @@ public interface Session extends Closeable {
      */
     ResultSequence submitRequest(Request request) throws RequestException;
 
+    /**
+     * <p>
+     * Create a {@link java.util.concurrent.Flow.Publisher} that will submit the {@link Request}
+     * and deliver the items of its result to a single subscriber, honoring the subscriber's
+     * demand. The request is submitted when the subscriber first requests items. Items are read
+     * and decoded on a small shared pool of XCC threads, and only as many as have been requested;
+     * while there is no demand no thread is used and the unread result stays on the connection.
+     * The connection is released when the result completes, fails or the subscription is
+     * cancelled.
+     * </p>
+     * <p>
+     * Backpressure only reaches the server if the request is streaming (see
+     * {@link RequestOptions#setCacheResult(boolean)}); a cached result is read in full when the
+     * request is submitted. Each item is cached before it is delivered, so subscribers may hold on
+     * to items. As with {@link #submitRequest(Request)}, this Session should not be used for other
+     * requests until the result is complete.
+     * </p>
+     * <p>
+     * The Sessions created by a {@link ContentSource} implement this method. The default
+     * implementation, for other implementations of this interface, throws
+     * {@link UnsupportedOperationException}.
+     * </p>
+     * 
+     * @param request
+     *            A {@link Request} created by this Session.
+     * @return A Publisher of the request's {@link ResultItem}s, which accepts one subscriber.
+     * @throws IllegalStateException
+     *             If this Session has been closed.
+     * @throws UnsupportedOperationException
+     *             If this Session implementation does not support publishers.
+     */
+    default Flow.Publisher<ResultItem> submitRequestPublisher(Request request) {
+        throw new UnsupportedOperationException("submitRequestPublisher is not supported by "
+                + getClass().getName());
+    }
+
+    /**
+     * <p>
+     * Submit a {@link Request} repeatedly, one page of <code>pageSize</code> items at a time, and
+     * return a {@link PagedResultCursor} that iterates over all the pages as one result. The
+     * first page is fetched before this method returns. Each following page is requested on a
+     * separate connection while the previous page is being consumed, so that iterating does not
+     * wait for a round trip at every page boundary.
+     * </p>
+     * <p>
+     * Paging starts at the request's {@link Request#getPosition()} and stops after
+     * {@link Request#getCount()} items, or when a short page comes back. Unless the request's
+     * options specify a point-in-time, the server's current timestamp is obtained first and used
+     * for every page (see {@link RequestOptions#setEffectivePointInTime(BigInteger)}), so the
+     * request must be a read-only query. Pages are fetched in advance only when this Session has
+     * no open multi-statement transaction.
+     * </p>
+     * <p>
+     * The Sessions created by a {@link ContentSource} implement this method. The default
+     * implementation, for other implementations of this interface, throws
+     * {@link UnsupportedOperationException}.
+     * </p>
+     * 
+     * @param request
+     *            A {@link Request} created by this Session. It is not modified.
+     * @param pageSize
+     *            The number of items to request per page, greater than zero.
+     * @return A {@link PagedResultCursor} positioned before the first item.
+     * @throws IllegalStateException
+     *             If this Session has been closed.
+     * @throws IllegalArgumentException
+     *             If the page size is not positive.
+     * @throws RequestException
+     *             If there is a problem fetching the point-in-time or the first page.
+     * @throws UnsupportedOperationException
+     *             If this Session implementation does not support paging.
+     */
+    default PagedResultCursor submitRequestPaged(Request request, long pageSize) throws RequestException {
+        throw new UnsupportedOperationException("submitRequestPaged is not supported by " + getClass().getName());
+    }
+
     /**
      * Create a new {@link AdhocQuery} object and initialize it with the given query string and
      * {@link RequestOptions} object.
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc;
+
+/**
+ * <p>
+ * The string values of the items of a {@link ResultSequence}, packed into a single character
+ * array. Individual values are only materialized as {@link String}s when asked for.
+ * </p>
+ * 
+ * @see ResultSequence#asStringColumn()
+ */
+public interface StringColumn {
+    /**
+     * The number of values in this column.
+     * 
+     * @return The number of values.
+     */
+    int size();
+
+    /**
+     * The string value at the given (zero-based) position. A new String is created on every call.
+     * 
+     * @param index
+     *            The position of the value.
+     * @return The value as a String.
+     * @throws IndexOutOfBoundsException
+     *             If index is out of range.
+     */
+    String get(int index);
+
+    /**
+     * The length, in chars, of the value at the given position.
+     * 
+     * @param index
+     *            The position of the value.
+     * @return The length of the value.
+     * @throws IndexOutOfBoundsException
+     *             If index is out of range.
+     */
+    int length(int index);
+
+    /**
+     * Copy the value at the given position into an array, without creating a String.
+     * 
+     * @param index
+     *            The position of the value.
+     * @param dest
+     *            The array to copy into, which must have room for {@link #length(int)} chars.
+     * @param destOffset
+     *            Where in dest to start copying.
+     * @return The number of chars copied.
+     * @throws IndexOutOfBoundsException
+     *             If index is out of range, or dest is too small.
+     */
+    int getChars(int index, char[] dest, int destOffset);
+
+    /**
+     * All values in this column, as Strings.
+     * 
+     * @return A newly allocated array of {@link #size()} Strings.
+     */
+    String[] toArray();
+}
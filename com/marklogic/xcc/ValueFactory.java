@@ -16,6 +16,7 @@
 package com.marklogic.xcc;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
@@ -69,6 +70,7 @@ import com.marklogic.xcc.types.impl.DocumentImpl;
 import com.marklogic.xcc.types.impl.ElementImpl;
 import com.marklogic.xcc.types.impl.ProcessingInstructionImpl;
 import com.marklogic.xcc.types.impl.SequenceImpl;
+import com.marklogic.xcc.types.impl.StreamedValue;
 import com.marklogic.xcc.types.impl.TextImpl;
 import com.marklogic.xcc.types.impl.XsAnyUriImpl;
 import com.marklogic.xcc.types.impl.XsBase64BinaryImpl;
@@ -552,6 +554,49 @@ public final class ValueFactory {
 
     // ------------------------------------------------------------
 
+    /**
+     * Factory method to construct an external variable value from the UTF-8 bytes of its lexical
+     * form. The bytes are encoded only as the request is sent, and never decoded to a String.
+     * @param type
+     *            The atomic type of the value, such as {@link ValueType#XS_STRING}.
+     * @param bytes
+     *            The UTF-8 encoded lexical value, which is not copied.
+     * @return A new {@link StreamedValue}.
+     */
+    public static StreamedValue newStreamedValue(AtomicType type, byte[] bytes) {
+        return (new StreamedValue(type, bytes));
+    }
+
+    /**
+     * Factory method to construct an external variable value that is read from a file only as the
+     * request is sent, so that it is never held in memory.
+     * @param type
+     *            The atomic type of the value, such as {@link ValueType#XS_STRING}.
+     * @param file
+     *            A file holding the UTF-8 encoded lexical value.
+     * @return A new {@link StreamedValue}.
+     */
+    public static StreamedValue newStreamedValue(AtomicType type, File file) {
+        return (new StreamedValue(type, file));
+    }
+
+    /**
+     * Factory method to construct an external variable value that is read from a stream as the
+     * request is sent. The stream can only be read once, so the request can't be retried.
+     * @param type
+     *            The atomic type of the value, such as {@link ValueType#XS_STRING}.
+     * @param stream
+     *            A stream of the UTF-8 encoded lexical value, which is closed once sent.
+     * @param length
+     *            The number of bytes in the stream, or -1 if not known.
+     * @return A new {@link StreamedValue}.
+     */
+    public static StreamedValue newStreamedValue(AtomicType type, InputStream stream, long length) {
+        return (new StreamedValue(type, stream, length));
+    }
+
+    // ------------------------------------------------------------
+
     /**
      * Factory method to create a variable (named value) from the given {@link XName} and
      * {@link XdmValue} objects.
@@ -15,14 +15,20 @@
  */
 package com.marklogic.xcc.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.net.URLDecoder;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Set;
 import java.util.TimeZone;
 
 import com.marklogic.http.MultipartBuffer;
+import com.marklogic.io.IOHelper;
 import com.marklogic.xcc.RequestOptions;
 import com.marklogic.xcc.ResultItem;
 import com.marklogic.xcc.ResultSequence;
@@ -32,76 +38,32 @@ import com.marklogic.xcc.types.XdmNode;
 import com.marklogic.xcc.types.impl.AttributeImpl;
 import com.marklogic.xcc.types.impl.BinaryImpl;
 import com.marklogic.xcc.types.impl.CommentImpl;
-import com.marklogic.xcc.types.impl.CtsBoxImpl;
-import com.marklogic.xcc.types.impl.CtsCircleImpl;
-import com.marklogic.xcc.types.impl.CtsPointImpl;
-import com.marklogic.xcc.types.impl.CtsPolygonImpl;
 import com.marklogic.xcc.types.impl.DocumentImpl;
 import com.marklogic.xcc.types.impl.ElementImpl;
 import com.marklogic.xcc.types.impl.ProcessingInstructionImpl;
 import com.marklogic.xcc.types.impl.TextImpl;
-import com.marklogic.xcc.types.impl.XsAnyUriImpl;
-import com.marklogic.xcc.types.impl.XsBase64BinaryImpl;
-import com.marklogic.xcc.types.impl.XsBooleanImpl;
-import com.marklogic.xcc.types.impl.XsDateImpl;
-import com.marklogic.xcc.types.impl.XsDateTimeImpl;
-import com.marklogic.xcc.types.impl.XsDayTimeDurationImpl;
-import com.marklogic.xcc.types.impl.XsDecimalImpl;
-import com.marklogic.xcc.types.impl.XsDoubleImpl;
-import com.marklogic.xcc.types.impl.XsDurationImpl;
-import com.marklogic.xcc.types.impl.XsFloatImpl;
-import com.marklogic.xcc.types.impl.XsGDayImpl;
-import com.marklogic.xcc.types.impl.XsGMonthDayImpl;
-import com.marklogic.xcc.types.impl.XsGMonthImpl;
-import com.marklogic.xcc.types.impl.XsGYearImpl;
-import com.marklogic.xcc.types.impl.XsGYearMonthImpl;
-import com.marklogic.xcc.types.impl.XsHexBinaryImpl;
 import com.marklogic.xcc.types.impl.XsIntegerImpl;
-import com.marklogic.xcc.types.impl.XsQNameImpl;
-import com.marklogic.xcc.types.impl.XsStringImpl;
-import com.marklogic.xcc.types.impl.XsTimeImpl;
-import com.marklogic.xcc.types.impl.XsUntypedAtomicImpl;
-import com.marklogic.xcc.types.impl.XsYearMonthDurationImpl;
 import com.marklogic.xcc.impl.handlers.ServerErrorParser;
 import com.marklogic.xcc.exceptions.RequestException;
 
 public abstract class AbstractResultSequence implements ResultSequence {
     protected static final Set<String> stringConstructedTypes = new HashSet<String>();
 
+    // Up to 18 digits always fits in a long
+    static final int MAX_LONG_DIGITS = 18;
+
+    // returned by canonicalLong() for bytes that are not a canonical long
+    private static final long NOT_CANONICAL = Long.MIN_VALUE;
+
     static {
-        stringConstructedTypes.add("string");
-        stringConstructedTypes.add("integer");
-        stringConstructedTypes.add("anyURI");
-        stringConstructedTypes.add("QName");
-        stringConstructedTypes.add("boolean");
-        stringConstructedTypes.add("decimal");
-        stringConstructedTypes.add("double");
-        stringConstructedTypes.add("float");
-        stringConstructedTypes.add("untypedAtomic");
-        stringConstructedTypes.add("anySimpleType");
-        stringConstructedTypes.add("date");
-        stringConstructedTypes.add("dateTime");
-        stringConstructedTypes.add("time");
-        stringConstructedTypes.add("gDay");
-        stringConstructedTypes.add("gMonth");
-        stringConstructedTypes.add("gMonthDay");
-        stringConstructedTypes.add("gYear");
-        stringConstructedTypes.add("gYearMonth");
-        stringConstructedTypes.add("duration");
-        stringConstructedTypes.add("dayTimeDuration");
-        stringConstructedTypes.add("yearMonthDuration");
-        stringConstructedTypes.add("base64Binary");
-        stringConstructedTypes.add("hexBinary");
-        stringConstructedTypes.add("box");
-        stringConstructedTypes.add("circle");
-        stringConstructedTypes.add("point");
-        stringConstructedTypes.add("polygon");
+        Collections.addAll(stringConstructedTypes, ResultItemTypes.atomicTypeNames());
     }
 
     protected Request request;
-    protected String sequencePart = null;
-    protected int sequencePosition = 0;
-    
+    protected CompactSequenceReader sequencePart = null;
+    // set when items of a streaming result are recycled, see RequestOptions.setStreamingItemReuse
+    ItemRecycler recycler = null;
+
     protected AbstractResultSequence(Request request) {
         this.request = request;
     }
@@ -124,8 +86,7 @@ public abstract class AbstractResultSequence implements ResultSequence {
                 throw new IllegalStateException("No content-type header in part");
             }
             if (contentType.equals("application/vnd.marklogic.sequence")) {
-                sequencePart = mbuf.getBodyAsString();
-                sequencePosition = 0;
+                sequencePart = new CompactSequenceReader(mbuf.getBodyStream());
             }
         }
         XdmItem item = null;
@@ -135,71 +96,227 @@ public abstract class AbstractResultSequence implements ResultSequence {
             TimeZone timezone = options.getTimeZone();
             Locale locale = options.getLocale();
 
-            int i = sequencePosition; 
-            while (i < sequencePart.length() && 
-                   sequencePart.charAt(i) != ':') {
-                ++i;
+            String primitive = sequencePart.readType();
+            ResultItemTypes.Entry type = ResultItemTypes.lookup(primitive);
+            String body = readSequenceValue(type);
+
+            if ((type != null) && (type.atomic != null)) {
+                item = (recycler == null) ? type.atomic.newItem(body, timezone, locale)
+                        : recycler.atomic(type, body, timezone, locale);
+            } else {
+                item = nodeFactory(type, primitive, body);
+            }
+        }
+
+        String uri = mbuf.getHeader("x-uri");
+        String path = mbuf.getHeader("x-path");
+
+        if (uri != null) {
+            uri = IOHelper.urlDecodeString(uri);
+        }
+
+        if (recycler != null) {
+            return recycler.resultItem(item, index, uri, path);
+        }
+
+        return new ResultItemImpl(item, index, uri, path);
+    }
+
+    /**
+     * Split off the next result part (or compact sequence record) without decoding it, for
+     * {@link ParallelResultDecoder}.
+     */
+    ParallelResultDecoder.RawPart readRawPart(MultipartBuffer mbuf) throws IOException {
+        if (sequencePart == null) {
+            mbuf.next();
+
+            String contentType = mbuf.getHeader("content-type");
+
+            if (contentType == null) {
+                throw new IllegalStateException("No content-type header in part");
             }
-            if (sequencePart.length() == i) {
-                throw new IllegalStateException("Unexpected EOF: " + 
-                        sequencePart.substring(sequencePosition));
+
+            if (!contentType.equals("application/vnd.marklogic.sequence")) {
+                return new ParallelResultDecoder.RawPart(contentType, mbuf.getHeader("x-primitive"),
+                        mbuf.getHeader("x-attr"), mbuf.getHeader("x-uri"), mbuf.getHeader("x-path"),
+                        "true".equals(mbuf.getHeader("x-error")), IOHelper.byteArrayFromStream(mbuf.getBodyStream()));
             }
-            String primitive = sequencePart.substring(sequencePosition, i);
-            sequencePosition = i+1;
-            
-            String body;
-            
-            if (primitive.equals("string")||primitive.equals("untypedAtomic")) {
-                i = sequencePosition; 
-                while ((i < sequencePart.length()) && 
-                        (sequencePart.charAt(i) != ':')) {
-                    ++i;
-                }
-                if (sequencePart.length() == i) {
-                    throw new IllegalStateException("Unexpected EOF: " + 
-                            sequencePart.substring(sequencePosition));
-                }
-                int length = Integer.parseInt(
-                        sequencePart.substring(sequencePosition, i));
-                int offset = i + 1;
-                for (int cp = 0, count = 0; 
-                     count < length; 
-                     offset += Character.charCount(cp), count++) {
-                    cp = sequencePart.codePointAt(offset);
-                }
-                body = sequencePart.substring(i+1, offset); 
-                i = offset;
-            } else {
-                i = sequencePosition; 
-                while ((i < sequencePart.length()) && 
-                        (sequencePart.charAt(i) != '\n')) {
-                    ++i;
+
+            sequencePart = new CompactSequenceReader(mbuf.getBodyStream());
+        }
+
+        String primitive = sequencePart.readType();
+        ByteArrayOutputStream value = new ByteArrayOutputStream();
+
+        readSequenceValue(ResultItemTypes.lookup(primitive), value);
+
+        return new ParallelResultDecoder.RawPart(null, primitive, mbuf.getHeader("x-uri"), mbuf.getHeader("x-path"),
+                value.toByteArray());
+    }
+
+    /**
+     * Like {@link #readRawPart(MultipartBuffer)}, but the part (or compact sequence record) goes
+     * straight from the response into a store, its body never copied anywhere else.
+     */
+    void readRawPart(MultipartBuffer mbuf, RawPartStore store) throws RequestException, IOException {
+        if (sequencePart == null) {
+            mbuf.next();
+
+            String contentType = mbuf.getHeader("content-type");
+
+            if (contentType == null) {
+                throw new IllegalStateException("No content-type header in part");
+            }
+
+            if (!contentType.equals("application/vnd.marklogic.sequence")) {
+                if ("true".equals(mbuf.getHeader("x-error"))) {
+                    RequestException ex = ServerErrorParser.makeException(request, mbuf.getBodyAsString());
+                    ex.setStackTrace((new Exception()).getStackTrace());
+                    throw ex;
                 }
-                body = sequencePart.subSequence(sequencePosition, i).toString();
+
+                store.beginRecord(false, false, contentType, mbuf.getHeader("x-primitive"), mbuf.getHeader("x-attr"),
+                        mbuf.getHeader("x-uri"), mbuf.getHeader("x-path"));
+                store.appendBody(mbuf.getBodyStream());
+                store.endRecord();
+
+                return;
             }
-            
-            if (i < sequencePart.length()) {
-                sequencePosition = i+1;
+
+            sequencePart = new CompactSequenceReader(mbuf.getBodyStream());
+        }
+
+        String primitive = sequencePart.readType();
+        OutputStream value = store.beginRecord(true, false, null, primitive, null, mbuf.getHeader("x-uri"),
+                mbuf.getHeader("x-path"));
+
+        readSequenceValue(ResultItemTypes.lookup(primitive), value);
+        store.endRecord();
+    }
+
+    /**
+     * Decode a part split off by {@link #readRawPart(MultipartBuffer)}. Safe to call from any
+     * thread.
+     */
+    ResultItem instantiateResultItem(ParallelResultDecoder.RawPart part, int index, RequestOptions options)
+            throws RequestException, IOException {
+        TimeZone timezone = options.getTimeZone();
+        Locale locale = options.getLocale();
+        ResultItemTypes.Entry type = ResultItemTypes.lookup(part.primitive);
+        XdmItem item;
+
+        if (part.sequenceRecord) {
+            String value = new String(part.body, "UTF-8");
+
+            if ((type != null) && (type.atomic != null)) {
+                item = type.atomic.newItem(value, timezone, locale);
             } else {
-                sequencePart = null;
-                sequencePosition = 0;
+                item = nodeFactory(type, part.primitive, value);
+            }
+        } else {
+            if (part.error) {
+                RequestException ex = ServerErrorParser.makeException(request, new String(part.body, "UTF-8"));
+                ex.setStackTrace((new Exception()).getStackTrace());
+                throw ex;
             }
 
-            if (stringConstructedTypes.contains(primitive)) {
-                item = (instantiateTypeFromString(primitive, body, timezone, locale));
+            if ((part.primitive == null) || (part.primitive.length() == 0)) {
+                throw new IllegalStateException("Result item has no x-primitive header value");
+            }
+
+            if (type == ResultItemTypes.INTEGER) {
+                item = integerFromBytes(part.body, part.body.length);
+            } else if ((type != null) && (type.atomic != null)) {
+                item = type.atomic.newItem(new String(part.body, "UTF-8"), timezone, locale);
             } else {
-                item = nodeFactory(contentType, primitive, body, options.getCacheResult());
+                item = nodeFactory(type, part.primitive, part.attributeName, part.body);
             }
         }
 
-        String uri = mbuf.getHeader("x-uri");
-        String path = mbuf.getHeader("x-path");
+        String uri = part.uri;
 
         if (uri != null) {
-            uri = URLDecoder.decode(uri, "UTF-8");
+            uri = IOHelper.urlDecodeString(uri);
+        }
+
+        return new ResultItemImpl(item, index, uri, part.path);
+    }
+
+    /**
+     * Feed the values of the rest of the result to a projector, straight from the raw part bytes,
+     * without instantiating items.
+     */
+    void projectRemaining(MultipartBuffer mbuf, ResultProjector projector) throws RequestException, IOException {
+        byte[] scratch = new byte[1024];
+
+        while ((sequencePart != null) || mbuf.hasNext()) {
+            if (sequencePart == null) {
+                mbuf.next();
+
+                String contentType = mbuf.getHeader("content-type");
+
+                if (contentType == null) {
+                    throw new IllegalStateException("No content-type header in part");
+                }
+
+                if (!contentType.equals("application/vnd.marklogic.sequence")) {
+                    if ("true".equals(mbuf.getHeader("x-error"))) {
+                        RequestException ex = ServerErrorParser.makeException(request, mbuf.getBodyAsString());
+                        ex.setStackTrace((new Exception()).getStackTrace());
+                        throw ex;
+                    }
+
+                    InputStream body = mbuf.getBodyStream();
+                    int len = 0;
+                    int rc;
+
+                    while ((rc = body.read(scratch, len, scratch.length - len)) > 0) {
+                        len += rc;
+
+                        if (len == scratch.length) {
+                            scratch = Arrays.copyOf(scratch, scratch.length * 2);
+                        }
+                    }
+
+                    projector.add(scratch, len);
+
+                    continue;
+                }
+
+                sequencePart = new CompactSequenceReader(mbuf.getBodyStream());
+            }
+
+            projector.add(readSequenceValue(ResultItemTypes.lookup(sequencePart.readType())));
+        }
+    }
+
+    private String readSequenceValue(ResultItemTypes.Entry type) throws IOException {
+        String body;
+
+        if ((type != null) && type.lengthPrefixed) {
+            body = sequencePart.readCodePoints(sequencePart.readLength());
+        } else {
+            body = sequencePart.readLineValue();
+        }
+
+        if (!sequencePart.hasMore()) {
+            sequencePart = null;
+        }
+
+        return body;
+    }
+
+    // the same, copying the undecoded value to a stream
+    private void readSequenceValue(ResultItemTypes.Entry type, OutputStream out) throws IOException {
+        if ((type != null) && type.lengthPrefixed) {
+            sequencePart.readCodePoints(sequencePart.readLength(), out);
+        } else {
+            sequencePart.readLineValue(out);
+        }
+
+        if (!sequencePart.hasMore()) {
+            sequencePart = null;
         }
-        
-        return new ResultItemImpl(item, index, uri, path);
     }
 
     private XdmItem instantiateXdmItem(String contentType, MultipartBuffer mbuf, RequestOptions options) throws RequestException, IOException {
@@ -219,151 +336,174 @@ public abstract class AbstractResultSequence implements ResultSequence {
             throw new IllegalStateException("Result item has no x-primitive header value");
         }
 
-        if (stringConstructedTypes.contains(primitive)) {
-            return (instantiateTypeFromString(primitive, mbuf.getBodyAsString(), timezone, locale));
+        ResultItemTypes.Entry type = ResultItemTypes.lookup(primitive);
+
+        if (type == ResultItemTypes.INTEGER) {
+            return integerFromStream(mbuf.getBodyStream());
+        }
+
+        if ((type != null) && (type.atomic != null)) {
+            if (recycler != null) {
+                return recycler.atomic(type, mbuf.getBodyAsString(), timezone, locale);
+            }
+
+            return type.atomic.newItem(mbuf.getBodyAsString(), timezone, locale);
         }
 
-        return nodeFactory(contentType, primitive, mbuf, options.getCacheResult());
+        return nodeFactory(type, primitive, mbuf, options.getCacheResult());
     }
 
-    private XdmNode nodeFactory(String contentType, String type, String body, boolean cache) throws IOException {
-        if (type.equals("text()")) {
-            return (new TextImpl(body));
+    // Integers are read as bytes, those that fit in a long never become Strings
+    private XdmItem integerFromStream(InputStream stream) throws IOException {
+        // room for a sign, the digits and one byte more to see if there are too many
+        byte[] buf = (recycler == null) ? new byte[MAX_LONG_DIGITS + 2] : recycler.integerBuffer;
+        int len = 0;
+        int rc;
+
+        while ((len < buf.length) && ((rc = stream.read(buf, len, buf.length - len)) > 0)) {
+            len += rc;
         }
-        else if (type.equals("node()")) {
-            return new ElementImpl(body);
+
+        if (len < buf.length) {
+            if (recycler == null) {
+                return integerFromBytes(buf, len);
+            }
+
+            long value = canonicalLong(buf, len);
+
+            if (value != NOT_CANONICAL) {
+                return recycler.integer(value);
+            }
+
+            return recycler.atomic(ResultItemTypes.INTEGER, new String(buf, 0, len, "UTF-8"), null, null);
         }
-        else {
-            throw new IOException("Nodes of type '" + type + "' are not supported in XCC result sequences");
+
+        byte[] rest = IOHelper.byteArrayFromStream(stream);
+        byte[] all = Arrays.copyOf(buf, len + rest.length);
+
+        System.arraycopy(rest, 0, all, len, rest.length);
+
+        if (recycler != null) {
+            return recycler.atomic(ResultItemTypes.INTEGER, new String(all, "UTF-8"), null, null);
         }
+
+        return XsIntegerImpl.lazy(new String(all, "UTF-8"));
     }
-    
-    private XdmNode nodeFactory(String contentType, String type, MultipartBuffer mbuf, boolean cache) throws IOException {
-        if (cache) {
-            if (type.equals("text()"))
-                return new TextImpl(mbuf.getBodyAsString());
-            if (type.equals("binary()"))
-                return new BinaryImpl(mbuf.getBodyStream(), true);
-            if (type.equals("document-node()"))
-                return new DocumentImpl(mbuf.getBodyAsString());
-            if (type.equals("element()"))
-                return new ElementImpl(mbuf.getBodyAsString());
-            if (type.equals("attribute()"))
-                return new AttributeImpl(mbuf.getHeader("x-attr"), mbuf.getBodyAsString());
-            if (type.equals("processing-instruction()"))
-                return new ProcessingInstructionImpl(mbuf.getBodyAsString());
-            if (type.equals("comment()"))
-                return new CommentImpl(mbuf.getBodyAsString());
-            // reproduce pre-5.0 behavior for pre-5.0 server
-            if (type.equals("node()")) 
-                return new ElementImpl(mbuf.getBodyAsString());
-        } else {
-            if (type.equals("text()"))
-                return new TextImpl(mbuf.getBodyStream());
-            if (type.equals("binary()"))
-                return new BinaryImpl(mbuf.getBodyStream(), false);
-            if (type.equals("document-node()"))
-                return new DocumentImpl(mbuf.getBodyStream());
-            if (type.equals("element()"))
-                return new ElementImpl(mbuf.getBodyStream());
-            if (type.equals("attribute()"))
-                return new AttributeImpl(mbuf.getHeader("x-attr"), mbuf.getBodyStream());
-            if (type.equals("processing-instruction()"))
-                return new ProcessingInstructionImpl(mbuf.getBodyStream());
-            if (type.equals("comment()"))
-                return new CommentImpl(mbuf.getBodyStream());
-            // reproduce pre-5.0 behavior for pre-5.0 server
-            if (type.equals("node()")) 
-                return new ElementImpl(mbuf.getBodyStream());
+
+    /**
+     * Make an xs:integer item from its lexical bytes. A canonical value of up to 18 digits is
+     * parsed straight to a long, its string form is then made only if asked for (and comes out
+     * the same). Anything else is kept as text and parsed when first asked for.
+     */
+    static XdmItem integerFromBytes(byte[] buf, int len) throws IOException {
+        long value = canonicalLong(buf, len);
+
+        if (value == NOT_CANONICAL) {
+            return XsIntegerImpl.lazy(new String(buf, 0, len, "UTF-8"));
         }
 
-        throw new IOException("Nodes of type '" + type + "' are not supported in XCC result sequences");
+        return new XsIntegerImpl(value);
     }
 
-    private XdmItem instantiateTypeFromString(String typeName, String bodyString, TimeZone timezone, Locale locale)
-            throws IOException {
-        if (typeName.equals("string")) {
-            return (new XsStringImpl(bodyString));
-        }
-        if (typeName.equals("integer")) {
-            return (new XsIntegerImpl(bodyString));
-        }
-        if (typeName.equals("anyURI")) {
-            return (new XsAnyUriImpl(bodyString));
-        }
-        if (typeName.equals("QName")) {
-            return (new XsQNameImpl(bodyString));
-        }
-        if (typeName.equals("boolean")) {
-            return (new XsBooleanImpl(bodyString));
-        }
-        if (typeName.equals("decimal")) {
-            return (new XsDecimalImpl(bodyString));
-        }
-        if (typeName.equals("double")) {
-            return (new XsDoubleImpl(bodyString));
-        }
-        if (typeName.equals("float")) {
-            return (new XsFloatImpl(bodyString));
-        }
-        if (typeName.equals("base64Binary")) {
-            return (new XsBase64BinaryImpl(bodyString));
-        }
-        if (typeName.equals("hexBinary")) {
-            return (new XsHexBinaryImpl(bodyString));
-        }
-        if (typeName.equals("untypedAtomic")) {
-            return (new XsUntypedAtomicImpl(bodyString));
-        }
-        if (typeName.equals("anySimpleType")) {
-            return (new XsUntypedAtomicImpl(bodyString)); // note: treated as xs:untypedAtomic
-        }
-        if (typeName.equals("date")) {
-            return (new XsDateImpl(bodyString, timezone, locale));
-        }
-        if (typeName.equals("dateTime")) {
-            return (new XsDateTimeImpl(bodyString, timezone, locale));
-        }
-        if (typeName.equals("time")) {
-            return (new XsTimeImpl(bodyString, timezone, locale));
-        }
-        if (typeName.equals("gDay")) {
-            return (new XsGDayImpl(bodyString, timezone, locale));
-        }
-        if (typeName.equals("gMonth")) {
-            return (new XsGMonthImpl(bodyString, timezone, locale));
-        }
-        if (typeName.equals("gMonthDay")) {
-            return (new XsGMonthDayImpl(bodyString, timezone, locale));
-        }
-        if (typeName.equals("gYear")) {
-            return (new XsGYearImpl(bodyString, timezone, locale));
-        }
-        if (typeName.equals("gYearMonth")) {
-            return (new XsGYearMonthImpl(bodyString, timezone, locale));
+    // The value of a canonical integer of up to 18 digits, or NOT_CANONICAL (which has 19)
+    private static long canonicalLong(byte[] buf, int len) {
+        int i = ((len > 0) && (buf[0] == '-')) ? 1 : 0;
+        int digits = len - i;
+
+        if ((digits < 1) || (digits > MAX_LONG_DIGITS) || ((buf[i] == '0') && ((digits > 1) || (i == 1)))) {
+            return NOT_CANONICAL;
         }
-        if (typeName.equals("duration")) {
-            return (new XsDurationImpl(bodyString));
+
+        long value = 0;
+
+        for (; i < len; i++) {
+            int digit = buf[i] - '0';
+
+            if ((digit < 0) || (digit > 9)) {
+                return NOT_CANONICAL;
+            }
+
+            value = (value * 10) + digit;
         }
-        if (typeName.equals("dayTimeDuration")) {
-            return (new XsDayTimeDurationImpl(bodyString));
+
+        return (buf[0] == '-') ? -value : value;
+    }
+
+    private XdmNode nodeFactory(ResultItemTypes.Entry type, String typeName, String body) throws IOException {
+        if (type != null) {
+            switch (type.node) {
+            case TEXT:
+                return new TextImpl(body);
+            case ELEMENT:
+                return new ElementImpl(body);
+            default:
+                break;
+            }
         }
-        if (typeName.equals("yearMonthDuration")) {
-            return (new XsYearMonthDurationImpl(bodyString));
+
+        throw new IOException("Nodes of type '" + typeName + "' are not supported in XCC result sequences");
+    }
+
+    private XdmNode nodeFactory(ResultItemTypes.Entry type, String typeName, MultipartBuffer mbuf, boolean cache)
+            throws IOException {
+        if (type == null) {
+            throw new IOException("Nodes of type '" + typeName + "' are not supported in XCC result sequences");
         }
-        if (typeName.equals("box")) {
-            return (new CtsBoxImpl(bodyString));
+
+        if (cache) {
+            if (type.node == ResultItemTypes.NodeKind.BINARY) {
+                return new BinaryImpl(mbuf.getBodyStream(), true);
+            }
+
+            return newNode(type.node, mbuf.getHeader("x-attr"), mbuf.getBodyAsString());
         }
-        if (typeName.equals("circle")) {
-            return (new CtsCircleImpl(bodyString));
+
+        switch (type.node) {
+        case TEXT:
+            return new TextImpl(mbuf.getBodyStream());
+        case BINARY:
+            return new BinaryImpl(mbuf.getBodyStream(), false);
+        case DOCUMENT:
+            return new DocumentImpl(mbuf.getBodyStream());
+        case ELEMENT:
+            return new ElementImpl(mbuf.getBodyStream());
+        case ATTRIBUTE:
+            return new AttributeImpl(mbuf.getHeader("x-attr"), mbuf.getBodyStream());
+        case PROCESSING_INSTRUCTION:
+            return new ProcessingInstructionImpl(mbuf.getBodyStream());
+        default:
+            return new CommentImpl(mbuf.getBodyStream());
         }
-        if (typeName.equals("point")) {
-            return (new CtsPointImpl(bodyString));
+    }
+
+    private XdmNode nodeFactory(ResultItemTypes.Entry type, String typeName, String attributeName, byte[] body)
+            throws IOException {
+        if (type == null) {
+            throw new IOException("Nodes of type '" + typeName + "' are not supported in XCC result sequences");
         }
-        if (typeName.equals("polygon")) {
-            return (new CtsPolygonImpl(bodyString));
+
+        if (type.node == ResultItemTypes.NodeKind.BINARY) {
+            return new BinaryImpl(new ByteArrayInputStream(body), true);
         }
 
-        throw new IOException("Unrecognized atomic item type: " + typeName);
+        return newNode(type.node, attributeName, new String(body, "UTF-8"));
+    }
+
+    // Build a node of any kind but binary from its whole body
+    private static XdmNode newNode(ResultItemTypes.NodeKind kind, String attributeName, String body) {
+        switch (kind) {
+        case TEXT:
+            return new TextImpl(body);
+        case DOCUMENT:
+            return new DocumentImpl(body);
+        case ELEMENT:
+            return new ElementImpl(body);
+        case ATTRIBUTE:
+            return new AttributeImpl(attributeName, body);
+        case PROCESSING_INSTRUCTION:
+            return new ProcessingInstructionImpl(body);
+        default:
+            return new CommentImpl(body);
+        }
     }
 }
@@ -17,7 +17,6 @@ package com.marklogic.xcc.impl;
 
 import java.util.logging.Logger;
 
-import com.marklogic.io.IOHelper;
 import com.marklogic.xcc.AdhocQuery;
 import com.marklogic.xcc.RequestOptions;
 import com.marklogic.xcc.Session;
@@ -54,7 +53,12 @@ public class AdhocImpl extends RequestImpl implements AdhocQuery {
     }
 
     @Override
-    void urlEncodeXQueryString(StringBuffer sb, Logger logger) {
-        IOHelper.urlEncodeToStringBuffer(sb, query);
+    String queryText() {
+        return query;
+    }
+
+    @Override
+    String xqueryString(Logger logger) {
+        return query;
     }
 }
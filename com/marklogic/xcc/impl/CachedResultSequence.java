@@ -16,9 +16,17 @@
 package com.marklogic.xcc.impl;
 
 import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.marklogic.http.MultipartBuffer;
 import com.marklogic.xcc.RequestOptions;
@@ -26,17 +34,40 @@ import com.marklogic.xcc.ResultChannelName;
 import com.marklogic.xcc.ResultItem;
 import com.marklogic.xcc.ResultSequence;
 import com.marklogic.xcc.Request;
+import com.marklogic.xcc.StringColumn;
 import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XdmItem;
 import com.marklogic.xcc.types.impl.SequenceImpl;
 import com.marklogic.xcc.exceptions.RequestException;
+import com.marklogic.xcc.exceptions.StreamingResultException;
 
 public class CachedResultSequence extends AbstractResultSequence {
+    // how many lazily decoded items to hang on to
+    private static final int MATERIALIZED_CACHE_SIZE = 32;
+
     private final ArrayList<ResultItem> items = new ArrayList<ResultItem>();
     private boolean closed = false;
     private int cursor = -1;
     private final ResultSequence primary;
     private long totalBytesRead;
+    // undecoded items held in memory when caching lazily, null otherwise
+    private ResultArena arena = null;
+    // undecoded items past the memory budget, null if everything fit
+    private ResultSpillFile spill = null;
+    private RequestOptions options = null;
+    private Map<Integer, ResultItem> materialized = null;
+    // decoded items, then arena items, then spilled items, by index
+    private final List<ResultItem> view = new AbstractList<ResultItem>() {
+        @Override
+        public ResultItem get(int index) {
+            return item(index);
+        }
+
+        @Override
+        public int size() {
+            return CachedResultSequence.this.size();
+        }
+    };
     
     // ------------------------------------------------------
 
@@ -47,22 +78,199 @@ public class CachedResultSequence extends AbstractResultSequence {
     }
 
     public CachedResultSequence(Request request, MultipartBuffer multipartBuffer, RequestOptions options) throws RequestException, IOException {
+        this(request, multipartBuffer, options, null);
+    }
+
+    // pendingSequence: a partially read compact sequence part to pick up from
+    CachedResultSequence(Request request, MultipartBuffer multipartBuffer, RequestOptions options,
+            CompactSequenceReader pendingSequence) throws RequestException, IOException {
         super(request);
         primary = this;
+        sequencePart = pendingSequence;
+
+        ResultMemoryBudget sharedBudget = ResultMemoryBudget.forRequest(request);
 
-        int index = 0;
+        if (options.getCacheResultLazy() || (options.getCachedResultMemoryBudget() > 0)
+                || ((sharedBudget != null) && (sharedBudget.getLimit() > 0))) {
+            storeRaw(multipartBuffer, options, sharedBudget);
+        } else if (options.getParallelDecodeThreshold() > 0) {
+            decodeParallel(multipartBuffer, options);
+        } else {
+            int index = 0;
 
-        while ((sequencePart != null) || multipartBuffer.hasNext()) {
-            ResultItem item = instantiateResultItem(multipartBuffer, index, options);
+            while ((sequencePart != null) || multipartBuffer.hasNext()) {
+                ResultItem item = instantiateResultItem(multipartBuffer, index, options);
 
-            item.cache();
-            items.add(item);
-            index++;
+                item.cache();
+                items.add(item);
+                index++;
+            }
         }
-        
+
         totalBytesRead = multipartBuffer.getTotalBytesRead();
     }
 
+    // Re-indexes already cached items from zero, used when caching a partially read stream
+    CachedResultSequence(Request request, List<ResultItem> cachedItems, long totalBytesRead) {
+        super(request);
+        primary = this;
+
+        for (int i = 0; i < cachedItems.size(); i++) {
+            ResultItem item = cachedItems.get(i);
+
+            items.add(new ResultItemImpl(item.getItem(), i, item.getDocumentURI(), item.getNodePath()));
+        }
+
+        this.totalBytesRead = totalBytesRead;
+    }
+
+    // This thread only splits the response, the parts are decoded on the fork-join pool
+    private void decodeParallel(MultipartBuffer multipartBuffer, RequestOptions options) throws RequestException,
+            IOException {
+        ParallelResultDecoder decoder = new ParallelResultDecoder(this, options, options.getParallelDecodeThreshold());
+        boolean split = false;
+
+        try {
+            while ((sequencePart != null) || multipartBuffer.hasNext()) {
+                ParallelResultDecoder.RawPart part = readRawPart(multipartBuffer);
+
+                decoder.add(part);
+
+                if (part.error) {
+                    break;
+                }
+            }
+
+            split = true;
+        } finally {
+            if (!split) {
+                decoder.cancel();
+            }
+        }
+
+        items.addAll(decoder.finish());
+    }
+
+    // Items are kept in memory (decoded, or raw in the arena when lazy) until either budget
+    // runs out, the rest go to a spill file
+    private void storeRaw(MultipartBuffer multipartBuffer, RequestOptions options, ResultMemoryBudget sharedBudget)
+            throws RequestException, IOException {
+        long budget = options.getCachedResultMemoryBudget();
+        long used = 0;
+        boolean done = false;
+        ResultMemoryBudget.Reservation reservation = null;
+
+        this.options = options;
+
+        if ((sharedBudget != null) && (sharedBudget.getLimit() > 0)) {
+            reservation = sharedBudget.newReservation();
+        }
+
+        if (options.getCacheResultLazy()) {
+            arena = new ResultArena(((budget > 0) || (reservation != null))
+                    ? new ArenaBudget(budget, sharedBudget, reservation) : null);
+        }
+
+        try {
+            while ((sequencePart != null) || multipartBuffer.hasNext()) {
+                if ((arena != null) || (spill != null)) {
+                    // the arena moves the part that doesn't fit to the spill file, which then
+                    // takes the rest
+                    readRawPart(multipartBuffer, (spill != null) ? spill : arena);
+                    continue;
+                }
+
+                ParallelResultDecoder.RawPart part = readRawPart(multipartBuffer);
+
+                if (part.error) {
+                    instantiateResultItem(part, size(), options); // throws
+                }
+
+                long bytes = part.size();
+
+                if (((budget <= 0) || ((used + bytes) <= budget))
+                        && ((reservation == null) || reservation.reserve(bytes))) {
+                    used += bytes;
+
+                    ResultItem item = instantiateResultItem(part, items.size(), options);
+
+                    item.cache();
+                    items.add(item);
+                    continue;
+                }
+
+                spill = new ResultSpillFile();
+                spill.append(part);
+            }
+
+            if (arena != null) {
+                arena.finish();
+            }
+
+            if (spill != null) {
+                spill.finish();
+            }
+
+            if ((arena != null) || (spill != null)) {
+                materialized = Collections.synchronizedMap(new LinkedHashMap<Integer, ResultItem>(
+                        MATERIALIZED_CACHE_SIZE * 2, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Integer, ResultItem> eldest) {
+                        return size() > MATERIALIZED_CACHE_SIZE;
+                    }
+                });
+            }
+
+            done = true;
+        } finally {
+            // the shared budget only bounds results while they are being read
+            if (reservation != null) {
+                reservation.release();
+            }
+
+            if (!done) {
+                close();
+            }
+        }
+    }
+
+    private ResultItem item(int index) {
+        if (index < items.size()) {
+            return items.get(index);
+        }
+
+        Integer key = Integer.valueOf(index);
+        ResultItem item = materialized.get(key);
+
+        if (item != null) {
+            return item;
+        }
+
+        int arenaSize = (arena == null) ? 0 : arena.size();
+        int storeIndex = index - items.size();
+
+        try {
+            if (storeIndex < arenaSize) {
+                item = instantiateResultItem(arena.read(storeIndex), index, options);
+            } else {
+                item = instantiateResultItem(spill.read(storeIndex - arenaSize), index, options);
+            }
+        } catch (RequestException e) {
+            throw new StreamingResultException("RequestException decoding cached ResultItem " + index + ": "
+                    + e.getMessage(), this, e);
+        } catch (IOException e) {
+            throw new StreamingResultException("IOException reading cached ResultItem " + index + ": "
+                    + e.getMessage(), this, e);
+        }
+
+        item.cache();
+        materialized.put(key, item);
+
+        return item;
+    }
+
     public long getTotalBytesRead() {
         return totalBytesRead;
     }
@@ -70,7 +278,17 @@ public class CachedResultSequence extends AbstractResultSequence {
     // ------------------------------------------------------
 
     public int size() {
-        return items.size();
+        int size = items.size();
+
+        if (arena != null) {
+            size += arena.size();
+        }
+
+        if (spill != null) {
+            size += spill.size();
+        }
+
+        return size;
     }
 
     public boolean isCached() {
@@ -79,6 +297,18 @@ public class CachedResultSequence extends AbstractResultSequence {
 
     public void close() {
         items.clear(); // let them be GC'ed
+        materialized = null;
+
+        if (arena != null) {
+            arena.close();
+            arena = null;
+        }
+
+        if (spill != null) {
+            spill.close();
+            spill = null;
+        }
+
         cursor = -1;
         closed = true;
     }
@@ -109,7 +339,7 @@ public class CachedResultSequence extends AbstractResultSequence {
 
         cursor++;
 
-        return items.get(cursor);
+        return item(cursor);
     }
 
     public ResultItem current() {
@@ -119,7 +349,7 @@ public class CachedResultSequence extends AbstractResultSequence {
             throw new IllegalStateException("Cursor is not valid");
         }
 
-        return items.get(cursor);
+        return item(cursor);
     }
 
     public ResultItem resultItemAt(int index) {
@@ -129,7 +359,7 @@ public class CachedResultSequence extends AbstractResultSequence {
             throw new IllegalArgumentException("Index out of range: size=" + size() + ", requested=" + index);
         }
 
-        return items.get(index);
+        return item(index);
     }
 
     public void rewind() {
@@ -141,7 +371,13 @@ public class CachedResultSequence extends AbstractResultSequence {
     public Iterator<ResultItem> iterator() {
         assertNotClosed();
 
-        return Collections.unmodifiableList(items).iterator();
+        return Collections.unmodifiableList(view).iterator();
+    }
+
+    public Stream<ResultItem> stream() {
+        assertNotClosed();
+
+        return StreamSupport.stream(new ItemSpliterator(view, 0, size()), false);
     }
 
     public ResultSequence toCached() {
@@ -162,7 +398,7 @@ public class CachedResultSequence extends AbstractResultSequence {
     }
 
     public boolean isEmpty() {
-        return (items.size() == 0);
+        return (size() == 0);
     }
 
     public ResultItem[] toResultItemArray() {
@@ -170,11 +406,43 @@ public class CachedResultSequence extends AbstractResultSequence {
 
         ResultItem[] array = new ResultItem[size()];
 
-        items.toArray(array);
+        view.toArray(array);
 
         return array;
     }
 
+    public long[] asLongArray() {
+        ResultProjector.Longs projector = new ResultProjector.Longs();
+
+        project(projector);
+
+        return projector.toArray();
+    }
+
+    public double[] asDoubleArray() {
+        ResultProjector.Doubles projector = new ResultProjector.Doubles();
+
+        project(projector);
+
+        return projector.toArray();
+    }
+
+    public StringColumn asStringColumn() {
+        ResultProjector.Strings projector = new ResultProjector.Strings();
+
+        project(projector);
+
+        return projector.toColumn();
+    }
+
+    private void project(ResultProjector projector) {
+        assertNotClosed();
+
+        for (ResultItem item : view) {
+            projector.add(item);
+        }
+    }
+
     public XdmItem[] toArray() {
         ResultItem[] resultItems = toResultItemArray();
         XdmItem[] array = new XdmItem[resultItems.length];
@@ -220,4 +488,100 @@ public class CachedResultSequence extends AbstractResultSequence {
             throw new IllegalStateException("ResultSequence is closed");
         }
     }
+
+    // Splits the item list by index range. Items are never added once constructed, but close()
+    // clears them, so the list is not reported as immutable.
+    private static class ItemSpliterator implements Spliterator<ResultItem> {
+        private final List<ResultItem> items;
+        private int index;
+        private final int end;
+
+        ItemSpliterator(List<ResultItem> items, int index, int end) {
+            this.items = items;
+            this.index = index;
+            this.end = end;
+        }
+
+        public boolean tryAdvance(Consumer<? super ResultItem> action) {
+            if (index >= end) {
+                return false;
+            }
+
+            action.accept(items.get(index++));
+
+            return true;
+        }
+
+        public void forEachRemaining(Consumer<? super ResultItem> action) {
+            while (index < end) {
+                action.accept(items.get(index++));
+            }
+        }
+
+        public Spliterator<ResultItem> trySplit() {
+            int mid = (index + end) >>> 1;
+
+            if (mid <= index) {
+                return null;
+            }
+
+            Spliterator<ResultItem> prefix = new ItemSpliterator(items, index, mid);
+
+            index = mid;
+
+            return prefix;
+        }
+
+        public long estimateSize() {
+            return end - index;
+        }
+
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+
+    // holds a lazily cached result's arena to both budgets, then spills
+    private class ArenaBudget implements ResultArena.Budget {
+        private final long limit;
+        private final ResultMemoryBudget shared;
+        private final ResultMemoryBudget.Reservation reservation;
+        private long used = 0;
+
+        ArenaBudget(long limit, ResultMemoryBudget shared, ResultMemoryBudget.Reservation reservation) {
+            this.limit = limit;
+            this.shared = shared;
+            this.reservation = reservation;
+        }
+
+        public long room() {
+            long room = (limit > 0) ? (limit - used) : Long.MAX_VALUE;
+
+            if (reservation != null) {
+                room = Math.min(room, shared.getLimit() - shared.getUsed());
+            }
+
+            return Math.max(room, 0);
+        }
+
+        public boolean claim(long bytes) {
+            if ((limit > 0) && ((used + bytes) > limit)) {
+                return false;
+            }
+
+            if ((reservation != null) && !reservation.reserve(bytes)) {
+                return false;
+            }
+
+            used += bytes;
+
+            return true;
+        }
+
+        public RawPartStore overflow() throws IOException {
+            spill = new ResultSpillFile();
+
+            return spill;
+        }
+    }
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Incremental tokenizer for application/vnd.marklogic.sequence parts. Records are
+ * <code>type:value</code> terminated by a newline, except <code>string</code> and
+ * <code>untypedAtomic</code> which are <code>type:length:value</code> where length counts code
+ * points. Records are split straight off the part's UTF-8 bytes, a record is available as soon as
+ * its bytes have arrived and only a small, fixed amount of data is buffered. A value can be had
+ * as a String or copied, undecoded, to a stream.
+ */
+class CompactSequenceReader {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final InputStream stream;
+    private final byte[] buf = new byte[BUFFER_SIZE];
+    // a token or value spanning buffer fills
+    private final ValueBuffer value = new ValueBuffer();
+    private int pos = 0;
+    private int limit = 0;
+    private boolean eof = false;
+    private boolean more = true;
+
+    CompactSequenceReader(InputStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * True if another record follows the one last read.
+     */
+    boolean hasMore() {
+        return more;
+    }
+
+    /**
+     * Read a record type, up to and including the ':' separator. A known type comes back as the
+     * name held by {@link ResultItemTypes}, so no String is made for it.
+     */
+    String readType() throws IOException {
+        return readToken(true);
+    }
+
+    /**
+     * Read the length prefix of a string record, up to and including the ':' separator.
+     */
+    int readLength() throws IOException {
+        return Integer.parseInt(readToken(false));
+    }
+
+    /**
+     * Read a value running to the end of the line (or of the part).
+     */
+    String readLineValue() throws IOException {
+        value.reset();
+        readLineValue(value);
+
+        return value.toUtf8String();
+    }
+
+    /**
+     * Copy the bytes of a value running to the end of the line (or of the part) to a stream.
+     */
+    void readLineValue(OutputStream out) throws IOException {
+        while (true) {
+            if ((pos == limit) && !fill()) {
+                more = false;
+
+                return;
+            }
+
+            int start = pos;
+
+            while (pos < limit) {
+                if (buf[pos] == '\n') {
+                    out.write(buf, start, pos - start);
+                    pos++;
+
+                    return;
+                }
+
+                pos++;
+            }
+
+            out.write(buf, start, pos - start);
+        }
+    }
+
+    /**
+     * Read a value of the given number of code points, plus the record separator following it.
+     */
+    String readCodePoints(int count) throws IOException {
+        value.reset();
+        readCodePoints(count, value);
+
+        return value.toUtf8String();
+    }
+
+    /**
+     * Copy the bytes of a value of the given number of code points to a stream, and skip the
+     * record separator following it.
+     */
+    void readCodePoints(int count, OutputStream out) throws IOException {
+        int remaining = count;
+
+        while (true) {
+            if ((pos == limit) && !fill()) {
+                if (remaining == 0) {
+                    break;
+                }
+
+                throw new IllegalStateException("Unexpected EOF in sequence value, " + remaining
+                        + " code points short");
+            }
+
+            int start = pos;
+
+            // a code point is counted on its leading byte, so the loop stops on the one after the
+            // last, having copied all of the last one's continuation bytes
+            while (pos < limit) {
+                if ((buf[pos] & 0xC0) != 0x80) {
+                    if (remaining == 0) {
+                        break;
+                    }
+
+                    remaining--;
+                }
+
+                pos++;
+            }
+
+            out.write(buf, start, pos - start);
+
+            if (pos < limit) {
+                break;
+            }
+        }
+
+        skipSeparator();
+    }
+
+    // ----------------------------------------------------------------
+
+    private String readToken(boolean typeName) throws IOException {
+        value.reset();
+
+        while (true) {
+            if ((pos == limit) && !fill()) {
+                throw new IllegalStateException("Unexpected EOF: " + value.toUtf8String());
+            }
+
+            int start = pos;
+
+            while (pos < limit) {
+                if (buf[pos] == ':') {
+                    String token;
+
+                    if (value.size() == 0) {
+                        token = token(buf, start, pos - start, typeName);
+                    } else {
+                        value.write(buf, start, pos - start);
+                        token = token(value.buffer(), 0, value.size(), typeName);
+                    }
+
+                    pos++;
+
+                    return token;
+                }
+
+                pos++;
+            }
+
+            value.write(buf, start, pos - start);
+        }
+    }
+
+    private static String token(byte[] bytes, int offset, int length, boolean typeName) {
+        ResultItemTypes.Entry entry = typeName ? ResultItemTypes.lookup(bytes, offset, length) : null;
+
+        return (entry != null) ? entry.name : new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+
+    private void skipSeparator() throws IOException {
+        if ((pos == limit) && !fill()) {
+            more = false;
+
+            return;
+        }
+
+        pos++;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+
+        int rc = stream.read(buf, 0, buf.length);
+
+        if (rc <= 0) {
+            eof = true;
+
+            return false;
+        }
+
+        pos = 0;
+        limit = rc;
+
+        return true;
+    }
+
+    private static class ValueBuffer extends ByteArrayOutputStream {
+        ValueBuffer() {
+            super(64);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+
+        String toUtf8String() {
+            return new String(buf, 0, count, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -37,6 +37,7 @@ import java.util.logging.Logger;
 
 import com.marklogic.io.Base64;
 import com.marklogic.io.IOHelper;
+import com.marklogic.io.StringCache;
 import com.marklogic.xcc.ContentSource;
 import com.marklogic.xcc.Session;
 import com.marklogic.xcc.UserCredentials;
@@ -52,6 +53,7 @@ public class ContentSourceImpl implements ContentSource {
     private static final String XCC_LOGGING_CONFIG_FILE = "xcc.logging.properties";
     private static final String SYSTEM_LOGGING_CONFIG_CLASS = "java.util.logging.config.class";
     private static final String SYSTEM_LOGGING_CONFIG_FILE = "java.util.logging.config.file";
+    private static final int STRING_CACHE_SIZE = 1024;
 
     private final ConnectionProvider connectionProvider;
     private final String user;
@@ -60,6 +62,10 @@ public class ContentSourceImpl implements ContentSource {
     private boolean authenticationPreemptive = false; 
     private boolean challengeIgnored = false; // for regression testing only
     private Logger logger = newDefaultLogger();
+    private final ResultBufferSizer resultBufferSizer = new ResultBufferSizer();
+    private final ResultMemoryBudget resultMemoryBudget = new ResultMemoryBudget();
+    private final StringCache stringCache = new StringCache(STRING_CACHE_SIZE);
+    private final EncodedQueryCache encodedQueryCache = new EncodedQueryCache();
 
     private AuthType authType = AuthType.NONE;
     private String challenge;
@@ -139,6 +145,34 @@ public class ContentSourceImpl implements ContentSource {
         this.logger = logger;
     }
 
+    public ResultBufferSizer getResultBufferSizer() {
+        return resultBufferSizer;
+    }
+
+    /**
+     * The memory budget shared by all cached result sequences of this ContentSource. Set a limit
+     * on it to have large results spill to disk rather than exhaust the heap.
+     */
+    public ResultMemoryBudget getResultMemoryBudget() {
+        return resultMemoryBudget;
+    }
+
+    /**
+     * Shares the result part header names and values, such as type names and document paths, that
+     * repeat across the results of this ContentSource.
+     */
+    public StringCache getStringCache() {
+        return stringCache;
+    }
+
+    /**
+     * Holds the encoded form of query texts recently submitted through this ContentSource, so
+     * that submitting one again only encodes its options and variables.
+     */
+    public EncodedQueryCache getEncodedQueryCache() {
+        return encodedQueryCache;
+    }
+
     public boolean isAuthenticationPreemptive() {
     	return this.authenticationPreemptive;
     }
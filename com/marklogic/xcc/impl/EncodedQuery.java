@@ -0,0 +1,207 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.marklogic.http.HttpChannel;
+import com.marklogic.io.FormEncoder;
+import com.marklogic.io.IOHelper;
+import com.marklogic.xcc.types.impl.StreamedValue;
+
+/**
+ * The form-urlencoded POST body of an eval or invoke request, a list of named fields. It is held
+ * as the already encoded query, literal text and raw field values, and the values are only encoded
+ * as they are written into the channel's buffer, so that a large value is never copied into an
+ * encoded String. A {@link StreamedValue} is read from its source and encoded a buffer at a time,
+ * so it is never held in memory at all. The body can be written any number of times, as a retried
+ * request must be, unless a streamed value can only be read once.
+ */
+public final class EncodedQuery {
+    // values this short are encoded into the literal text rather than kept as pieces
+    private static final int INLINE_LENGTH = 64;
+    private static final int COPY_BUFFER_SIZE = 8 * 1024;
+
+    // byte[] pieces are written as they are, String pieces are encoded, StreamedValue
+    // pieces are read from their source and encoded
+    private final List<Object> pieces = new ArrayList<Object>();
+    private final StringBuilder literal = new StringBuilder();
+    private ByteBuffer scratch = null;
+    private long length = 0;
+    private boolean lengthKnown = true;
+
+    private EncodedQuery() {
+    }
+
+    /**
+     * @param encodedQuery
+     *            The first field, the query, already encoded as <code>name=value</code>.
+     */
+    static EncodedQuery form(byte[] encodedQuery) {
+        EncodedQuery query = new EncodedQuery();
+
+        query.pieces.add(encodedQuery);
+        query.length = encodedQuery.length;
+
+        return query;
+    }
+
+    /**
+     * A body that is entirely the given, already form-urlencoded text.
+     */
+    public static EncodedQuery of(String body) {
+        return form(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ----------------------------------------------------------------
+
+    EncodedQuery field(String name, String value) {
+        literal.append('&').append(name).append('=');
+        appendEncoded(value);
+
+        return this;
+    }
+
+    EncodedQuery field(String name, long value) {
+        literal.append('&').append(name).append('=').append(value);
+
+        return this;
+    }
+
+    // The encoded length of a streamed value isn't known until it has been read
+    EncodedQuery field(String name, StreamedValue value) {
+        literal.append('&').append(name).append('=');
+        flushLiteral();
+        pieces.add(value);
+        lengthKnown = false;
+
+        return this;
+    }
+
+    // ----------------------------------------------------------------
+
+    /**
+     * The number of bytes in the body, or -1 if it has a streamed value.
+     */
+    public long length() {
+        flushLiteral();
+
+        return lengthKnown ? length : -1;
+    }
+
+    /**
+     * The number of bytes in the body that are not streamed from elsewhere, which is all of it
+     * unless it has a streamed value.
+     */
+    public int bufferedLength() {
+        flushLiteral();
+
+        return (int)Math.min(length, Integer.MAX_VALUE);
+    }
+
+    public void writeTo(HttpChannel http) throws IOException {
+        flushLiteral();
+
+        for (Object piece : pieces) {
+            if (piece instanceof byte[]) {
+                http.write((byte[])piece);
+            } else if (piece instanceof String) {
+                http.writeUrlEncoded((String)piece);
+            } else {
+                copy((StreamedValue)piece, http);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        flushLiteral();
+
+        StringBuffer sb = new StringBuffer(bufferedLength());
+
+        for (Object piece : pieces) {
+            if (piece instanceof byte[]) {
+                sb.append(new String((byte[])piece, StandardCharsets.UTF_8));
+            } else if (piece instanceof String) {
+                IOHelper.urlEncodeToStringBuffer(sb, (String)piece);
+            } else {
+                sb.append("[").append(piece).append("]");
+            }
+        }
+
+        return sb.toString();
+    }
+
+    // ----------------------------------------------------------------
+
+    private void appendEncoded(String value) {
+        if (value.length() <= INLINE_LENGTH) {
+            if (scratch == null) {
+                scratch = ByteBuffer.allocate(INLINE_LENGTH * FormEncoder.MAX_BYTES_PER_CHAR);
+            }
+
+            FormEncoder.encode(value, 0, value.length(), scratch);
+
+            for (int i = 0; i < scratch.position(); i++) {
+                literal.append((char)scratch.get(i));
+            }
+
+            scratch.clear();
+
+            return;
+        }
+
+        flushLiteral();
+        pieces.add(value);
+        length += FormEncoder.encodedLength(value);
+    }
+
+    private void flushLiteral() {
+        if (literal.length() != 0) {
+            byte[] bytes = literal.toString().getBytes(StandardCharsets.UTF_8);
+
+            pieces.add(bytes);
+            length += bytes.length;
+            literal.setLength(0);
+        }
+    }
+
+    private static void copy(StreamedValue value, HttpChannel http) throws IOException {
+        InputStream is = value.openStream();
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long total = 0;
+        int rc;
+
+        try {
+            while ((rc = is.read(buffer)) > 0) {
+                http.writeUrlEncoded(buffer, 0, rc);
+                total += rc;
+            }
+        } finally {
+            is.close();
+        }
+
+        if ((value.getLength() >= 0) && (total != value.getLength())) {
+            throw new IOException("Streamed variable value is " + total + " bytes, expected "
+                    + value.getLength());
+        }
+    }
+}
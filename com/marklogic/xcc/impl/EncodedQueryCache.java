@@ -0,0 +1,165 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.marklogic.io.FormEncoder;
+import com.marklogic.xcc.Request;
+
+/**
+ * Keeps the form-encoded bytes of recently submitted query texts, so that a query submitted
+ * again, with the same or different variables, is not URL-encoded again. Entries are keyed by the
+ * request parameter name and the query text and evicted least recently used first, once either
+ * the entry count or the total number of cached bytes passes its limit. One instance is held by
+ * each {@link ContentSourceImpl}.
+ */
+public class EncodedQueryCache {
+    private static final int MAX_ENTRIES = 256;
+    private static final long MAX_BYTES = 8 * 1024 * 1024;
+    // a single query larger than this is encoded every time rather than crowd out the others
+    private static final int MAX_ENTRY_BYTES = 1024 * 1024;
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(64, 0.75f, true);
+    private long totalBytes = 0;
+
+    /**
+     * The encoded form of a query text: <code>requestVar=encoded-text</code>, as UTF-8 bytes.
+     */
+    static final class Entry {
+        final String requestVar;
+        final String text;
+        final byte[] bytes;
+
+        Entry(String requestVar, String text, byte[] bytes) {
+            this.requestVar = requestVar;
+            this.text = text;
+            this.bytes = bytes;
+        }
+
+        boolean isFor(String requestVar, String text) {
+            return (this.text == text) && this.requestVar.equals(requestVar);
+        }
+    }
+
+    private static final class Key {
+        final String requestVar;
+        final String text;
+        final int hash;
+
+        Key(String requestVar, String text) {
+            this.requestVar = requestVar;
+            this.text = text;
+            this.hash = (31 * requestVar.hashCode()) + text.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key)o;
+
+            return (hash == other.hash) && requestVar.equals(other.requestVar) && text.equals(other.text);
+        }
+    }
+
+    // ----------------------------------------------------------------
+
+    public static EncodedQueryCache forRequest(Request request) {
+        Object cs = request.getSession().getContentSource();
+
+        if (!(cs instanceof ContentSourceImpl)) {
+            return null;
+        }
+
+        return ((ContentSourceImpl)cs).getEncodedQueryCache();
+    }
+
+    /**
+     * Return the encoded form of the given query text, from the cache if it is there.
+     */
+    Entry get(String requestVar, String text) {
+        Key key = new Key(requestVar, text);
+        Entry entry;
+
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        if (entry != null) {
+            return entry;
+        }
+
+        entry = encode(requestVar, text);
+
+        if (entry.bytes.length > MAX_ENTRY_BYTES) {
+            return entry;
+        }
+
+        synchronized (entries) {
+            if (entries.put(key, entry) == null) {
+                totalBytes += entry.bytes.length;
+            }
+
+            Iterator<Entry> it = entries.values().iterator();
+
+            while ((entries.size() > MAX_ENTRIES) || (totalBytes > MAX_BYTES)) {
+                totalBytes -= it.next().bytes.length;
+                it.remove();
+            }
+        }
+
+        return entry;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            totalBytes = 0;
+        }
+    }
+
+    // ----------------------------------------------------------------
+
+    static Entry encode(String requestVar, String text) {
+        byte[] name = (requestVar + "=").getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buf = ByteBuffer.allocate(name.length + FormEncoder.encodedLength(text)
+                + FormEncoder.MAX_BYTES_PER_CHAR);
+
+        buf.put(name);
+        FormEncoder.encode(text, 0, text.length(), buf);
+
+        return new Entry(requestVar, text, Arrays.copyOf(buf.array(), buf.position()));
+    }
+}
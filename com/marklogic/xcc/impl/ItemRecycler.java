@@ -0,0 +1,97 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.util.Locale;
+import java.util.TimeZone;
+
+import com.marklogic.xcc.ResultItem;
+import com.marklogic.xcc.types.XdmItem;
+import com.marklogic.xcc.types.impl.ReusableItem;
+import com.marklogic.xcc.types.impl.XsDoubleImpl;
+import com.marklogic.xcc.types.impl.XsIntegerImpl;
+import com.marklogic.xcc.types.impl.XsStringImpl;
+import com.marklogic.xcc.types.impl.XsUntypedAtomicImpl;
+
+/**
+ * Hands out the same ResultItem, and the same item for each of the common atomic types, for
+ * every item of a streaming result, so that iterating makes next to no garbage. Other types are
+ * made as usual.
+ * <p>
+ * If the {@link #CHECK_SYSTEM_PROPERTY} system property is true nothing is reused. Each item is
+ * made afresh and the previous ResultItem is marked stale, so that code holding on to an item
+ * past its lifetime fails rather than silently seeing a later value.
+ * </p>
+ */
+class ItemRecycler {
+    public static final String CHECK_SYSTEM_PROPERTY = "xcc.streaming.reuse.check";
+
+    private static final boolean CHECK = Boolean.getBoolean(CHECK_SYSTEM_PROPERTY);
+
+    private final ReusableItem string = new XsStringImpl(null);
+    private final ReusableItem untypedAtomic = new XsUntypedAtomicImpl(null);
+    private final ReusableItem xsDouble = XsDoubleImpl.lazy(null);
+    private final XsIntegerImpl integer = XsIntegerImpl.lazy(null);
+    private ReusableResultItem resultItem = new ReusableResultItem();
+
+    // scratch space for reading the bytes of an integer
+    final byte[] integerBuffer = new byte[AbstractResultSequence.MAX_LONG_DIGITS + 2];
+
+    XdmItem atomic(ResultItemTypes.Entry type, String value, TimeZone timezone, Locale locale) {
+        ReusableItem item = null;
+
+        if (!CHECK) {
+            if (type == ResultItemTypes.STRING) {
+                item = string;
+            } else if (type == ResultItemTypes.INTEGER) {
+                item = integer;
+            } else if (type == ResultItemTypes.DOUBLE) {
+                item = xsDouble;
+            } else if (type == ResultItemTypes.UNTYPED_ATOMIC) {
+                item = untypedAtomic;
+            }
+        }
+
+        if (item == null) {
+            return type.atomic.newItem(value, timezone, locale);
+        }
+
+        item.reuse(value);
+
+        return item;
+    }
+
+    XdmItem integer(long value) {
+        if (CHECK) {
+            return new XsIntegerImpl(value);
+        }
+
+        integer.reuse(value);
+
+        return integer;
+    }
+
+    ResultItem resultItem(XdmItem value, int index, String uri, String path) {
+        if (CHECK) {
+            resultItem.markStale();
+            resultItem = new ReusableResultItem();
+        }
+
+        resultItem.set(value, index, uri, path);
+
+        return resultItem;
+    }
+}
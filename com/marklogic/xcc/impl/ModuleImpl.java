@@ -20,7 +20,6 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.logging.Logger;
 
-import com.marklogic.io.IOHelper;
 import com.marklogic.xcc.ModuleInvoke;
 import com.marklogic.xcc.ModuleSpawn;
 import com.marklogic.xcc.RequestOptions;
@@ -98,7 +97,13 @@ public class ModuleImpl extends RequestImpl implements ModuleInvoke, ModuleSpawn
     }
 
     @Override
-    void urlEncodeXQueryString(StringBuffer sb, Logger logger) {
+    String queryText() {
+        // the old style call is built around the variables
+        return (oldEncodingStyle) ? null : moduleUri;
+    }
+
+    @Override
+    String xqueryString(Logger logger) {
         if (oldEncodingStyle) {
             XdmVariable[] vars = getVariables();
             Map<String,String> qnameMap = generateQNameMap(vars);
@@ -108,10 +113,10 @@ public class ModuleImpl extends RequestImpl implements ModuleInvoke, ModuleSpawn
             putPrologue(modcall, vars, qnameMap);
             putFunctionCall(modcall, getModuleUri(), getSession().getContentBaseName(), vars, qnameMap);
 
-            IOHelper.urlEncodeToStringBuffer(sb, modcall.toString());
-        } else {
-            IOHelper.urlEncodeToStringBuffer(sb, moduleUri);
+            return modcall.toString();
         }
+
+        return moduleUri;
     }
 
     // ------------------------------------------------------
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.math.BigInteger;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.marklogic.xcc.PagedResultCursor;
+import com.marklogic.xcc.RequestOptions;
+import com.marklogic.xcc.ResultItem;
+import com.marklogic.xcc.ResultSequence;
+import com.marklogic.xcc.exceptions.RequestException;
+
+/**
+ * Pages through a result by resubmitting the request with successive position ranges. As soon as
+ * a page has arrived the next one is requested on a pool thread, which obtains its own
+ * connection, so that it is usually ready by the time the current page has been consumed. At most
+ * one page is fetched ahead, and the pool thread doesn't update the session's server version or
+ * cookies; pages fetched on the caller's thread do. A fetched page that is no longer wanted, because the cursor was
+ * closed, is closed by whichever side sees it last.
+ */
+class PagedResultCursorImpl implements PagedResultCursor {
+    private static final ExecutorService executor = Executors.newCachedThreadPool(new DaemonThreadFactory(
+            "xcc-page-prefetch-"));
+
+    private final SessionImpl session;
+    private final RequestImpl request;
+    private final RequestOptions options;
+    private final long pageSize;
+    private final boolean prefetch;
+    private final Object lock = new Object();
+
+    private long nextPosition;
+    private long remaining;
+
+    private ResultSequence page;
+    private long pageRequested;
+    private long pageItems = 0;
+    private int pageCount = 0;
+    private boolean exhausted = false;
+    private boolean closed = false;
+
+    // The following page, guarded by lock
+    private long pendingPosition;
+    private long pendingCount = 0;
+    private boolean pendingSubmitted = false;
+    private boolean pendingDone = false;
+    private ResultSequence pendingResult = null;
+    private Throwable pendingError = null;
+
+    PagedResultCursorImpl(SessionImpl session, RequestImpl request, RequestOptions options, long pageSize,
+            boolean prefetch) throws RequestException {
+        this.session = session;
+        this.request = request;
+        this.options = options;
+        this.pageSize = pageSize;
+        this.prefetch = prefetch;
+
+        nextPosition = Math.max(request.getPosition(), 1);
+        remaining = request.getCount();
+
+        // the first page is fetched here, there's nothing to overlap it with
+        reserveNextPage(false);
+        takeNextPage();
+    }
+
+    // ----------------------------------------------------------
+    // PagedResultCursor interface
+
+    public boolean hasNext() throws RequestException {
+        if (exhausted) {
+            return false;
+        }
+
+        assertOpen();
+
+        while (!page.hasNext()) {
+            if ((pageItems < pageRequested) || (pendingCount == 0)) {
+                // a short (or the final) page, there's nothing more to fetch
+                exhausted = true;
+                close();
+
+                return false;
+            }
+
+            page.close();
+            page = null;
+
+            boolean taken = false;
+
+            try {
+                takeNextPage();
+                taken = true;
+            } finally {
+                if (!taken) {
+                    close();
+                }
+            }
+        }
+
+        return true;
+    }
+
+    public ResultItem next() throws RequestException {
+        if (!hasNext()) {
+            return null;
+        }
+
+        pageItems++;
+
+        return page.next();
+    }
+
+    public long getPageSize() {
+        return pageSize;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public BigInteger getPointInTime() {
+        return options.getEffectivePointInTime();
+    }
+
+    public void close() {
+        ResultSequence unwanted = null;
+
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+
+            if (pendingDone) {
+                unwanted = pendingResult;
+                pendingResult = null;
+            }
+        }
+
+        if (unwanted != null) {
+            unwanted.close();
+        }
+
+        if (page != null) {
+            page.close();
+            page = null;
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public String toString() {
+        return "PagedResultCursor: pageSize=" + pageSize + ", pages=" + pageCount + ", closed=" + closed;
+    }
+
+    // ----------------------------------------------------------
+
+    private void assertOpen() {
+        if (closed) {
+            throw new IllegalStateException("PagedResultCursor is closed");
+        }
+    }
+
+    // Claim the range of the page after the current one and, if allowed, start fetching it
+    private void reserveNextPage(boolean submit) {
+        long count = Math.min(pageSize, remaining);
+
+        synchronized (lock) {
+            pendingPosition = nextPosition;
+            pendingCount = count;
+            pendingSubmitted = false;
+            pendingDone = false;
+            pendingResult = null;
+            pendingError = null;
+        }
+
+        if (count == 0) {
+            return;
+        }
+
+        nextPosition += count;
+
+        if (remaining != Long.MAX_VALUE) {
+            remaining -= count;
+        }
+
+        if (submit) {
+            final long position = pendingPosition;
+
+            synchronized (lock) {
+                pendingSubmitted = true;
+            }
+
+            executor.execute(new Runnable() {
+                public void run() {
+                    fetchPending(position, count);
+                }
+            });
+        }
+    }
+
+    private void fetchPending(long position, long count) {
+        ResultSequence rs = null;
+        Throwable error = null;
+
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+        }
+
+        try {
+            rs = session.submitRequestRange(request, options, position, count, true);
+        } catch (Throwable e) {
+            error = e;
+        }
+
+        synchronized (lock) {
+            if (!closed) {
+                pendingResult = rs;
+                pendingError = error;
+                pendingDone = true;
+                lock.notifyAll();
+
+                return;
+            }
+        }
+
+        if (rs != null) {
+            rs.close();
+        }
+    }
+
+    // Make the reserved page current, waiting for it or fetching it here, then reserve the next
+    private void takeNextPage() throws RequestException {
+        ResultSequence rs;
+
+        if (pendingSubmitted) {
+            rs = awaitPending();
+        } else {
+            rs = session.submitRequestRange(request, options, pendingPosition, pendingCount, false);
+        }
+
+        page = rs;
+        pageRequested = pendingCount;
+        pageItems = 0;
+        pageCount++;
+
+        // A cached page that is already known to be short is the last one
+        if ((rs.size() != -1) && (rs.size() < pageRequested)) {
+            remaining = 0;
+        }
+
+        reserveNextPage(prefetch);
+    }
+
+    private ResultSequence awaitPending() throws RequestException {
+        synchronized (lock) {
+            while (!pendingDone) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+
+                    throw new RequestException("Interrupted waiting for result page", request, e);
+                }
+            }
+
+            ResultSequence rs = pendingResult;
+            Throwable error = pendingError;
+
+            pendingResult = null;
+            pendingError = null;
+
+            if (error instanceof RequestException) {
+                throw (RequestException)error;
+            }
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException)error;
+            }
+            if (error instanceof Error) {
+                throw (Error)error;
+            }
+            if (error != null) {
+                throw new RequestException("Fetching result page failed: " + error.getMessage(), request, error);
+            }
+
+            return rs;
+        }
+    }
+}
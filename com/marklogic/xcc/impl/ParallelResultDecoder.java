@@ -0,0 +1,227 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.marklogic.xcc.RequestOptions;
+import com.marklogic.xcc.ResultItem;
+import com.marklogic.xcc.exceptions.RequestException;
+
+/**
+ * Decodes the raw parts of a cached result on the common fork-join pool while the reading thread
+ * goes on splitting the response. Parts are grouped into fixed size batches, nothing is handed
+ * to the pool until the number of parts reaches the threshold, so small results are decoded
+ * inline exactly as before. Items come back in result order, and the failure of the earliest
+ * part wins, as it would when decoding serially.
+ */
+class ParallelResultDecoder {
+    private static final int BATCH_SIZE = 32;
+
+    private final AbstractResultSequence rs;
+    private final RequestOptions options;
+    private final int threshold;
+    private final List<Batch> batches = new ArrayList<Batch>();
+    private Batch current = null;
+    private int count = 0;
+    private boolean forking = false;
+
+    ParallelResultDecoder(AbstractResultSequence rs, RequestOptions options, int threshold) {
+        this.rs = rs;
+        this.options = options;
+        this.threshold = Math.max(threshold, 1);
+    }
+
+    void add(RawPart part) {
+        if (current == null) {
+            current = new Batch(count);
+        }
+
+        current.parts.add(part);
+        count++;
+
+        if (current.parts.size() < BATCH_SIZE) {
+            return;
+        }
+
+        batches.add(current);
+        current = null;
+
+        if (forking) {
+            fork(batches.get(batches.size() - 1));
+        } else if (count >= threshold) {
+            forking = true;
+
+            for (Batch batch : batches) {
+                fork(batch);
+            }
+        }
+    }
+
+    /**
+     * Decode whatever has not been handed to the pool yet, wait for the rest and return all
+     * items in order.
+     */
+    List<ResultItem> finish() throws RequestException, IOException {
+        if (current != null) {
+            batches.add(current);
+
+            if (forking) {
+                fork(current);
+            }
+
+            current = null;
+        }
+
+        List<ResultItem> items = new ArrayList<ResultItem>(count);
+
+        for (Batch batch : batches) {
+            if (forking) {
+                batch.join();
+            } else {
+                batch.compute();
+            }
+
+            for (int i = 0; i < batch.decoded; i++) {
+                items.add(batch.items[i]);
+            }
+
+            if (batch.failure != null) {
+                rethrow(batch.failure);
+            }
+        }
+
+        return items;
+    }
+
+    /**
+     * Give up on any work still queued, used when reading the response fails.
+     */
+    void cancel() {
+        if (!forking) {
+            return;
+        }
+
+        for (Batch batch : batches) {
+            batch.cancel(false);
+        }
+    }
+
+    // ----------------------------------------------------------------
+
+    private void fork(Batch batch) {
+        ForkJoinPool.commonPool().execute(batch);
+    }
+
+    private static void rethrow(Throwable t) throws RequestException, IOException {
+        if (t instanceof RequestException) {
+            throw (RequestException)t;
+        }
+        if (t instanceof IOException) {
+            throw (IOException)t;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException)t;
+        }
+        if (t instanceof Error) {
+            throw (Error)t;
+        }
+
+        throw new IOException("Result decoding failed: " + t, t);
+    }
+
+    // ----------------------------------------------------------------
+
+    private class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int firstIndex;
+        final List<RawPart> parts = new ArrayList<RawPart>(BATCH_SIZE);
+        ResultItem[] items;
+        int decoded = 0;
+        Throwable failure = null;
+
+        Batch(int firstIndex) {
+            this.firstIndex = firstIndex;
+        }
+
+        @Override
+        protected void compute() {
+            items = new ResultItem[parts.size()];
+
+            for (int i = 0; i < items.length; i++) {
+                try {
+                    ResultItem item = rs.instantiateResultItem(parts.get(i), firstIndex + i, options);
+
+                    item.cache();
+                    items[i] = item;
+                    decoded++;
+                } catch (Throwable t) {
+                    failure = t;
+                    break;
+                }
+
+                parts.set(i, null); // let the raw bytes go
+            }
+        }
+    }
+
+    /**
+     * A result part as split off the response, but not yet decoded. Either a whole multipart
+     * part or a single record of a compact sequence part, either way with its body kept as the
+     * bytes it was sent as.
+     */
+    static class RawPart {
+        final String contentType;
+        final String primitive;
+        final String attributeName;
+        final String uri;
+        final String path;
+        final boolean error;
+        final boolean sequenceRecord;
+        final byte[] body;
+
+        RawPart(String contentType, String primitive, String attributeName, String uri, String path,
+                boolean error, byte[] body) {
+            this(contentType, primitive, attributeName, uri, path, error, false, body);
+        }
+
+        RawPart(String contentType, String primitive, String uri, String path, byte[] value) {
+            this(contentType, primitive, null, uri, path, false, true, value);
+        }
+
+        private RawPart(String contentType, String primitive, String attributeName, String uri, String path,
+                boolean error, boolean sequenceRecord, byte[] body) {
+            this.contentType = contentType;
+            this.primitive = primitive;
+            this.attributeName = attributeName;
+            this.uri = uri;
+            this.path = path;
+            this.error = error;
+            this.sequenceRecord = sequenceRecord;
+            this.body = body;
+        }
+
+        // roughly the memory this part takes once decoded
+        long size() {
+            return (sequenceRecord) ? (body.length * 2L) : body.length;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Undecoded result parts of a cached result, stored back to back as records with an offset index,
+ * to be decoded when accessed. A record is a small header followed by the body bytes as they came
+ * off the response, which can be streamed in without being held anywhere else first. Subclasses
+ * decide where the record bytes live.
+ */
+abstract class RawPartStore {
+    private static final int FLAG_SEQUENCE_RECORD = 1;
+    private static final int FLAG_ERROR = 2;
+
+    private final RecordBuffer header = new RecordBuffer();
+    private final DataOutputStream headerOut = new DataOutputStream(header);
+    private final OutputStream bodyOut = new BodyStream();
+    // record i is at offsets[i] .. offsets[i + 1]
+    private long[] offsets = new long[64];
+    private int size = 0;
+    // the end of the record being appended
+    private long end = 0;
+
+    int size() {
+        return size;
+    }
+
+    void append(ParallelResultDecoder.RawPart part) throws IOException {
+        beginRecord(part.sequenceRecord, part.error, part.contentType, part.primitive, part.attributeName, part.uri,
+                part.path).write(part.body);
+        endRecord();
+    }
+
+    /**
+     * Start appending a record. Its body is then written to the stream returned, or read in with
+     * {@link #appendBody(InputStream)}, and the record completed with {@link #endRecord()}.
+     */
+    OutputStream beginRecord(boolean sequenceRecord, boolean error, String contentType, String primitive,
+            String attributeName, String uri, String path) throws IOException {
+        header.reset();
+
+        headerOut.writeByte((sequenceRecord ? FLAG_SEQUENCE_RECORD : 0) | (error ? FLAG_ERROR : 0));
+        writeString(contentType);
+        writeString(primitive);
+        writeString(attributeName);
+        writeString(uri);
+        writeString(path);
+
+        bodyOut.write(header.buffer(), 0, header.size());
+
+        return bodyOut;
+    }
+
+    /**
+     * Start appending a record that was begun on another store, given the bytes written there so
+     * far: its header and perhaps some of its body.
+     */
+    OutputStream continueRecord(byte[] buf, int off, int len) throws IOException {
+        bodyOut.write(buf, off, len);
+
+        return bodyOut;
+    }
+
+    /**
+     * Read the rest of a stream into the body of the record being appended.
+     */
+    void appendBody(InputStream in) throws IOException {
+        end += writeFrom(in);
+    }
+
+    /**
+     * Complete the record being appended.
+     */
+    void endRecord() {
+        if ((size + 2) > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+
+        offsets[size + 1] = end;
+        size++;
+    }
+
+    /**
+     * Done appending, switch to reading.
+     */
+    void finish() throws IOException {
+    }
+
+    /**
+     * Read back a part, safe to call from several threads once {@link #finish()} has been called.
+     */
+    ParallelResultDecoder.RawPart read(int index) throws IOException {
+        long position = offsets[index];
+        DataInputStream in = open(position, (int)(offsets[index + 1] - position));
+        int flags = in.readByte();
+        String contentType = readString(in);
+        String primitive = readString(in);
+        String attributeName = readString(in);
+        String uri = readString(in);
+        String path = readString(in);
+        // the body runs to the end of the record
+        byte[] body = new byte[in.available()];
+
+        in.readFully(body);
+
+        if ((flags & FLAG_SEQUENCE_RECORD) != 0) {
+            return new ParallelResultDecoder.RawPart(contentType, primitive, uri, path, body);
+        }
+
+        return new ParallelResultDecoder.RawPart(contentType, primitive, attributeName, uri, path,
+                (flags & FLAG_ERROR) != 0, body);
+    }
+
+    abstract void close();
+
+    // ----------------------------------------------------------------
+
+    protected abstract void write(byte[] buf, int off, int len) throws IOException;
+
+    /**
+     * Append the rest of a stream, returning the number of bytes read.
+     */
+    protected long writeFrom(InputStream in) throws IOException {
+        byte[] scratch = new byte[8 * 1024];
+        long total = 0;
+        int rc;
+
+        while ((rc = in.read(scratch)) >= 0) {
+            write(scratch, 0, rc);
+            total += rc;
+        }
+
+        return total;
+    }
+
+    /**
+     * @return The record, from memory, so that {@link InputStream#available()} is the number of
+     *         bytes left in it.
+     */
+    protected abstract DataInputStream open(long position, int length) throws IOException;
+
+    // ----------------------------------------------------------------
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            headerOut.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes("UTF-8");
+
+        headerOut.writeInt(bytes.length);
+        headerOut.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+
+        if (len < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[len];
+
+        in.readFully(bytes);
+
+        return new String(bytes, "UTF-8");
+    }
+
+    private static class RecordBuffer extends ByteArrayOutputStream {
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+    private class BodyStream extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte)b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            RawPartStore.this.write(b, off, len);
+            end += len;
+        }
+    }
+}
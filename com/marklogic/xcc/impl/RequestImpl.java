@@ -15,8 +15,11 @@
  */
 package com.marklogic.xcc.impl;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -33,6 +36,7 @@ import com.marklogic.xcc.types.XdmNode;
 import com.marklogic.xcc.types.XdmSequence;
 import com.marklogic.xcc.types.XdmValue;
 import com.marklogic.xcc.types.XdmVariable;
+import com.marklogic.xcc.types.impl.StreamedValue;
 
 public abstract class RequestImpl implements Request {
     private final Session session;
@@ -40,7 +44,9 @@ public abstract class RequestImpl implements Request {
     private Set<XdmVariable> variables = Collections.synchronizedSet(new LinkedHashSet<XdmVariable>());
     private long position = 1; // beginning position of the requested subsequence
     private long count = Long.MAX_VALUE; // count of the requested subsequence
-    
+    private volatile EncodedQueryCache.Entry encodedQuery = null; // last encoded query text
+    private volatile EffectiveOptions effective = null; // last merged options
+
     // ---------------------------------------------------
 
     public RequestImpl(Session session, RequestOptions options) {
@@ -51,12 +57,23 @@ public abstract class RequestImpl implements Request {
 
     // ---------------------------------------------------
 
-    abstract void urlEncodeXQueryString(StringBuffer sb, Logger logger);
+    /**
+     * The query text sent as the {@link #requestVar()} field, unencoded.
+     */
+    abstract String xqueryString(Logger logger);
 
     abstract String serverPath();
 
     abstract String requestVar();
 
+    /**
+     * The text {@link #xqueryString(Logger)} returns, if it depends on that text alone and so its
+     * encoding may be cached, otherwise null.
+     */
+    String queryText() {
+        return null;
+    }
+
     // ---------------------------------------------------
 
     public Session getSession() {
@@ -76,13 +93,37 @@ public abstract class RequestImpl implements Request {
     }
 
     public RequestOptions getEffectiveOptions() {
-        RequestOptions eff = new RequestOptions();
+        return new RequestOptions(effectiveOptions());
+    }
+
+    /**
+     * The effective options of the given request, shared rather than copied if it is one of ours.
+     * The result must not be modified.
+     */
+    public static RequestOptions effectiveOptions(Request request) {
+        if (request instanceof RequestImpl) {
+            return ((RequestImpl)request).effectiveOptions();
+        }
+
+        return request.getEffectiveOptions();
+    }
+
+    // The effective options are merged again only when the session or request
+    // options are replaced or changed, which their versions track. The merged
+    // instance is shared, callers that modify it must take a copy.
+    RequestOptions effectiveOptions() {
         RequestOptions req = getOptions();
         RequestOptions ses = getSession().getDefaultRequestOptions();
+        EffectiveOptions eff = effective;
 
-        eff.applyEffectiveValues(new RequestOptions[] { ses, req });
+        if ((eff != null) && eff.isFor(ses, req)) {
+            return eff.options;
+        }
+
+        eff = new EffectiveOptions(ses, req);
+        effective = eff;
 
-        return eff;
+        return eff.options;
     }
 
     public void setVariable(XdmVariable variable) {
@@ -167,90 +208,134 @@ public abstract class RequestImpl implements Request {
         this.count = count;
     }
 
-    String encodedQueryString(Logger logger) {
-        StringBuffer sb = new StringBuffer();
+    // The POST payload is the encoded query, which is the bulk of it and rarely
+    // changes, followed by the options, variables and range, which are encoded anew
+    // for each submission.
 
-        sb.append(requestVar()).append("=");
-        urlEncodeXQueryString(sb, logger);
+    // The leading requestVar=query part of the payload, as bytes. If the query
+    // text is all that goes into it, it is encoded once and shared through the
+    // ContentSource's cache.
+    byte[] encodedQueryPrefix(Logger logger) {
+        String text = queryText();
 
-        encodeQueryOptions(sb, null);
+        if (text == null) {
+            StringBuffer sb = new StringBuffer();
 
-        encodeQueryVariables(sb, logger);
-        
-        encodePositionRange(sb);
+            sb.append(requestVar()).append("=");
+            IOHelper.urlEncodeToStringBuffer(sb, xqueryString(logger));
 
-        String payload = sb.toString();
+            return sb.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+
+        EncodedQueryCache.Entry entry = encodedQuery;
+
+        if ((entry != null) && entry.isFor(requestVar(), text)) {
+            return entry.bytes;
+        }
+
+        EncodedQueryCache cache = EncodedQueryCache.forRequest(this);
+
+        entry = (cache == null) ? EncodedQueryCache.encode(requestVar(), text) : cache.get(requestVar(), text);
+        encodedQuery = entry;
+
+        return entry.bytes;
+    }
+
+    EncodedQuery encodedQuery(Logger logger) {
+        return encodedQuery(logger, null, position, count);
+    }
+
+    // Encode with the given options, or the effective options if null, and
+    // subsequence range in place of this request's own.
+    EncodedQuery encodedQuery(Logger logger, RequestOptions options, long position, long count) {
+        XdmVariable[] vars = getVariables();
+        EncodedQuery query = EncodedQuery.form(encodedQueryPrefix(logger));
+
+        for (Map.Entry<String,String> field : queryOptionFields(options).entrySet()) {
+            query.field(field.getKey(), field.getValue());
+        }
+
+        encodeQueryVariables(query, vars, logger);
+
+        encodePositionRange(query, position, count);
 
         if (logger.isLoggable(Level.FINEST)) {
-            logger.finest("Eval request POST payload: '" + payload + "'");
+            logger.finest("Eval request POST payload: '" + query + "'");
         }
 
-        return (payload);
+        return (query);
     }
 
-    private void encodePositionRange(StringBuffer sb) {
+    private void encodePositionRange(EncodedQuery query, long position, long count) {
         if (position > 1) {
-            sb.append("&pos=").append(position);
+            query.field("pos", position);
         }
         if (count < Long.MAX_VALUE) {
-            sb.append("&cnt=").append(count);
+            query.field("cnt", count);
         }       
     }
 
     public void encodeQueryOptions(StringBuffer sb, RequestOptions requestOptions) {
-        RequestOptions options = (requestOptions == null) ? getEffectiveOptions() : requestOptions;
+        for (Map.Entry<String,String> field : queryOptionFields(requestOptions).entrySet()) {
+            sb.append("&").append(field.getKey()).append("=");
+            IOHelper.urlEncodeToStringBuffer(sb, field.getValue());
+        }
+    }
+
+    // The option fields of the payload, in order, unencoded
+    private Map<String,String> queryOptionFields(RequestOptions requestOptions) {
+        RequestOptions options = (requestOptions == null) ? effectiveOptions() : requestOptions;
+        Map<String,String> fields = new LinkedHashMap<String,String>();
 
-        sb.append("&locale=").append(options.getLocale().toString());
-        sb.append("&tzoffset=").append((options.getTimeZone().getOffset(System.currentTimeMillis())) / 1000);
+        fields.put("locale", options.getLocale().toString());
+        fields.put("tzoffset", Integer.toString((options.getTimeZone().getOffset(System.currentTimeMillis())) / 1000));
 
         if (session.getContentBaseName() != null) {
             String dbname = session.getContentBaseName();
 
             if (isName(dbname)) {
-                sb.append("&dbname=");
-                IOHelper.urlEncodeToStringBuffer(sb, session.getContentBaseName());
+                fields.put("dbname", dbname);
             } else {
-                sb.append("&dbid=").append(dbname.substring(1)); // numeric
+                fields.put("dbid", dbname.substring(1)); // numeric
             }
         }
 
         if (options.getEffectivePointInTime() != null) {
-            sb.append("&timestamp=").append(options.getEffectivePointInTime().toString());
+            fields.put("timestamp", options.getEffectivePointInTime().toString());
         }
 
         if (options.getRequestName() != null) {
-            sb.append("&requestname=");
-            IOHelper.urlEncodeToStringBuffer(sb, options.getRequestName());
+            fields.put("requestname", options.getRequestName());
         }
 
         if (options.getDefaultXQueryVersion() != null) {
-            sb.append("&defaultxquery=");
-            IOHelper.urlEncodeToStringBuffer(sb, options.getDefaultXQueryVersion());
+            fields.put("defaultxquery", options.getDefaultXQueryVersion());
         }
 
         if (options.getRequestTimeLimit() != -1) {
-            sb.append("&timelimit=").append(options.getRequestTimeLimit());
+            fields.put("timelimit", Integer.toString(options.getRequestTimeLimit()));
         }
-    }
 
-    private void encodeQueryVariables(StringBuffer sb, Logger logger) {
-        XdmVariable[] vars = getVariables();
+        return fields;
+    }
 
+    // Values are encoded only as the query is written to the channel
+    private void encodeQueryVariables(EncodedQuery query, XdmVariable[] vars, Logger logger) {
         for (int i = 0; i < vars.length; i++) {
             XdmVariable var = vars[i];
             XName xname = var.getName();
             XdmValue value = var.getValue();
 
-            sb.append("&evn").append(i).append("=");
-            if (xname.getNamespace() != null) {
-                sb.append(xname.getNamespace());
-            }
+            query.field("evn" + i, (xname.getNamespace() == null) ? "" : xname.getNamespace());
+            query.field("evl" + i, xname.getLocalname());
+
+            query.field("evt" + i, value.getValueType().toString());
 
-            sb.append("&evl").append(i).append("=").append(xname.getLocalname());
-            sb.append("&evt").append(i).append("=");
-            IOHelper.urlEncodeToStringBuffer(sb, value.getValueType().toString());
-            sb.append("&evv").append(i).append("=");
-            IOHelper.urlEncodeToStringBuffer(sb, value.asString());
+            if (value instanceof StreamedValue) {
+                query.field("evv" + i, (StreamedValue)value);
+            } else {
+                query.field("evv" + i, value.asString());
+            }
 
             // TODO: Test this output
             if (logger.isLoggable(Level.FINEST)) {
@@ -269,4 +354,31 @@ public abstract class RequestImpl implements Request {
 
         return true;
     }
+
+    // Effective options and the versions of the options they were merged from
+    static final class EffectiveOptions {
+        private final RequestOptions session;
+        private final int sessionVersion;
+        private final RequestOptions request;
+        private final int requestVersion;
+        final RequestOptions options = new RequestOptions();
+
+        EffectiveOptions(RequestOptions session, RequestOptions request) {
+            this.session = session;
+            this.sessionVersion = session.getVersion();
+            this.request = request;
+            this.requestVersion = (request == null) ? 0 : request.getVersion();
+
+            if (request == null) {
+                options.applyEffectiveValues(new RequestOptions[] { session });
+            } else {
+                options.applyEffectiveValues(new RequestOptions[] { session, request });
+            }
+        }
+
+        boolean isFor(RequestOptions session, RequestOptions request) {
+            return (this.session == session) && (sessionVersion == session.getVersion())
+                    && (this.request == request) && ((request == null) || (requestVersion == request.getVersion()));
+        }
+    }
 }
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Raw result parts of a lazily cached result, held in one contiguous buffer. The buffer is on
+ * the heap unless the {@link #DIRECT_SYSTEM_PROPERTY} system property is true, in which case it
+ * is allocated off-heap.
+ * <p>
+ * An arena may be given a {@link Budget}. Bytes are claimed from it as they are written, and the
+ * first write that doesn't fit moves the record being appended to the budget's overflow store.
+ * That record and all that follow are then written there, so a part larger than the budget never
+ * has more than one read's worth of its bytes in the arena.
+ */
+class ResultArena extends RawPartStore {
+    public static final String DIRECT_SYSTEM_PROPERTY = "xcc.result.arena.direct";
+
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    // the most read into a budgeted arena before the bytes are claimed
+    private static final int BUDGETED_READ_SIZE = 64 * 1024;
+    private static final boolean DIRECT = Boolean.getBoolean(DIRECT_SYSTEM_PROPERTY);
+
+    private final Budget budget;
+    private ByteBuffer arena = allocate(INITIAL_CAPACITY);
+    private int recordStart = 0;
+    // once over budget: where records go, and the body of the one that was moved there
+    private RawPartStore overflow = null;
+    private OutputStream overflowBody = null;
+
+    /**
+     * @param budget
+     *            The budget to hold the arena to, or null for none.
+     */
+    ResultArena(Budget budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    OutputStream beginRecord(boolean sequenceRecord, boolean error, String contentType, String primitive,
+            String attributeName, String uri, String path) throws IOException {
+        if (overflow != null) {
+            return overflow.beginRecord(sequenceRecord, error, contentType, primitive, attributeName, uri, path);
+        }
+
+        recordStart = arena.position();
+
+        return super.beginRecord(sequenceRecord, error, contentType, primitive, attributeName, uri, path);
+    }
+
+    @Override
+    void appendBody(InputStream in) throws IOException {
+        if (overflow != null) {
+            overflow.appendBody(in);
+        } else {
+            super.appendBody(in);
+        }
+    }
+
+    @Override
+    void endRecord() {
+        if (overflow != null) {
+            overflow.endRecord();
+        } else {
+            super.endRecord();
+        }
+    }
+
+    @Override
+    void finish() {
+        if (arena.capacity() - arena.position() > (arena.capacity() >> 2)) {
+            // trim the slack left by doubling
+            arena = copy(arena.position());
+        }
+    }
+
+    @Override
+    void close() {
+        arena = allocate(0);
+    }
+
+    // ----------------------------------------------------------------
+
+    @Override
+    protected void write(byte[] buf, int off, int len) throws IOException {
+        if ((overflow == null) && (budget != null) && !budget.claim(len)) {
+            divert();
+        }
+
+        if (overflow != null) {
+            overflowBody.write(buf, off, len);
+            return;
+        }
+
+        ensureRemaining(len);
+        arena.put(buf, off, len);
+    }
+
+    // read straight into the arena's own array
+    @Override
+    protected long writeFrom(InputStream in) throws IOException {
+        if (!arena.hasArray()) {
+            return super.writeFrom(in); // goes through write(), which keeps to the budget
+        }
+
+        long total = 0;
+
+        while (overflow == null) {
+            ensureRemaining(1);
+
+            int len = (budget == null) ? arena.remaining() : Math.min(arena.remaining(), BUDGETED_READ_SIZE);
+            int rc = in.read(arena.array(), arena.arrayOffset() + arena.position(), len);
+
+            if (rc < 0) {
+                return total;
+            }
+
+            arena.position(arena.position() + rc);
+
+            if ((budget != null) && !budget.claim(rc)) {
+                // the bytes just read go along with the rest of the record
+                divert();
+                break;
+            }
+
+            total += rc;
+        }
+
+        overflow.appendBody(in);
+
+        return total;
+    }
+
+    @Override
+    protected DataInputStream open(long position, int length) {
+        if (arena.hasArray()) {
+            return new DataInputStream(new ByteArrayInputStream(arena.array(), arena.arrayOffset() + (int)position,
+                    length));
+        }
+
+        byte[] record = new byte[length];
+        ByteBuffer view = arena.duplicate();
+
+        view.position((int)position);
+        view.get(record);
+
+        return new DataInputStream(new ByteArrayInputStream(record));
+    }
+
+    // ----------------------------------------------------------------
+
+    private void ensureRemaining(int len) throws IOException {
+        if (arena.remaining() < len) {
+            long needed = (long)arena.position() + len;
+
+            if (needed > MAX_CAPACITY) {
+                throw new IOException("Lazily cached result exceeds " + MAX_CAPACITY + " bytes");
+            }
+
+            long capacity = Math.max(needed, arena.capacity() * 2L);
+
+            if (budget != null) {
+                // no bigger than the budget could still fill
+                capacity = Math.min(capacity, Math.max(needed, arena.position() + budget.room() + BUDGETED_READ_SIZE));
+            }
+
+            arena = copy((int)Math.min(capacity, MAX_CAPACITY));
+        }
+    }
+
+    // move the record being appended, as far as it has got, to the overflow store
+    private void divert() throws IOException {
+        byte[] started = new byte[arena.position() - recordStart];
+        ByteBuffer view = arena.duplicate();
+
+        view.position(recordStart);
+        view.get(started);
+        arena.position(recordStart);
+
+        overflow = budget.overflow();
+        overflowBody = overflow.continueRecord(started, 0, started.length);
+    }
+
+    private ByteBuffer copy(int capacity) {
+        ByteBuffer bigger = allocate(capacity);
+        ByteBuffer data = arena.duplicate();
+
+        data.flip();
+        bigger.put(data);
+
+        return bigger;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return (DIRECT) ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    // ----------------------------------------------------------------
+
+    /**
+     * How many more bytes an arena may hold, and where the records go that don't fit.
+     */
+    interface Budget {
+        /**
+         * @return The number of bytes that may still be claimed, at most.
+         */
+        long room();
+
+        /**
+         * @return true if the bytes were claimed, false if they don't fit.
+         */
+        boolean claim(long bytes);
+
+        /**
+         * @return The store to take the record that didn't fit, and all that follow it.
+         */
+        RawPartStore overflow() throws IOException;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.marklogic.http.MultipartBuffer;
+import com.marklogic.xcc.Request;
+
+/**
+ * Keeps a decaying histogram of observed result shapes (largest part and total response size)
+ * per request name, and suggests splitter and receive buffer sizes from it. One instance is held
+ * by each {@link ContentSourceImpl}. Requests without a name share a single histogram.
+ */
+public class ResultBufferSizer {
+    // power-of-two buckets, bucket n counts sizes in (2^(n-1), 2^n]
+    private static final int BUCKETS = 32;
+    // counts are halved after this many samples, so old shapes fade out
+    private static final int DECAY_INTERVAL = 64;
+    // don't second-guess the defaults until we've seen a few results
+    private static final int MIN_SAMPLES = 4;
+    private static final double PERCENTILE = 0.9;
+    private static final int MAX_RECEIVE_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_TRACKED_NAMES = 256;
+    private static final String UNNAMED = "";
+
+    private final ConcurrentMap<String, SizeHistogram> histograms = new ConcurrentHashMap<String, SizeHistogram>();
+
+    // ----------------------------------------------------------------
+
+    public static ResultBufferSizer forRequest(Request request) {
+        Object cs = request.getSession().getContentSource();
+
+        if (!(cs instanceof ContentSourceImpl)) {
+            return null;
+        }
+
+        return ((ContentSourceImpl)cs).getResultBufferSizer();
+    }
+
+    /**
+     * Suggested size for the multipart splitter buffer, or zero if there is not yet enough
+     * history and the implementation default should be used.
+     */
+    public int suggestSplitterBufferSize(String requestName) {
+        SizeHistogram hist = histograms.get(key(requestName));
+
+        if (hist == null) {
+            return 0;
+        }
+
+        return hist.suggestSplitterBufferSize();
+    }
+
+    /**
+     * Suggested size for the HTTP receive buffer, or zero if there is not yet enough history.
+     * Capped at 64KB because the receive buffer is direct.
+     */
+    public int suggestReceiveBufferSize(String requestName) {
+        int size = suggestSplitterBufferSize(requestName);
+
+        return Math.min(size, MAX_RECEIVE_BUFFER_SIZE);
+    }
+
+    public void record(String requestName, MultipartBuffer mbuf) {
+        if (mbuf.isClosed()) {
+            return;
+        }
+
+        record(requestName, mbuf.getLargestPartSize(), mbuf.getTotalBytesRead());
+    }
+
+    public void record(String requestName, long largestPart, long totalBytes) {
+        String key = key(requestName);
+        SizeHistogram hist = histograms.get(key);
+
+        if (hist == null) {
+            if (histograms.size() >= MAX_TRACKED_NAMES) {
+                // don't let an unbounded set of request names grow the map
+                key = UNNAMED;
+            }
+
+            hist = new SizeHistogram();
+
+            SizeHistogram prev = histograms.putIfAbsent(key, hist);
+
+            if (prev != null) {
+                hist = prev;
+            }
+        }
+
+        hist.record(largestPart, totalBytes);
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+
+    // ----------------------------------------------------------------
+
+    private static String key(String requestName) {
+        return (requestName == null) ? UNNAMED : requestName;
+    }
+
+    private static int bucket(long size) {
+        if (size <= 1) {
+            return 0;
+        }
+
+        int bucket = 64 - Long.numberOfLeadingZeros(size - 1);
+
+        return (bucket >= BUCKETS) ? (BUCKETS - 1) : bucket;
+    }
+
+    static class SizeHistogram {
+        private final int[] partCounts = new int[BUCKETS];
+        private final int[] totalCounts = new int[BUCKETS];
+        private int samples = 0;
+        private int sinceDecay = 0;
+
+        synchronized void record(long largestPart, long totalBytes) {
+            partCounts[bucket(largestPart)]++;
+            totalCounts[bucket(totalBytes)]++;
+            samples++;
+
+            if (++sinceDecay >= DECAY_INTERVAL) {
+                decay();
+            }
+        }
+
+        synchronized int suggestSplitterBufferSize() {
+            if (samples < MIN_SAMPLES) {
+                return 0;
+            }
+
+            long part = percentile(partCounts);
+            long total = percentile(totalCounts);
+
+            // No point in a buffer bigger than the whole response
+            long size = Math.min(part, total);
+
+            return (size > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)size;
+        }
+
+        private long percentile(int[] counts) {
+            int sum = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                sum += counts[i];
+            }
+
+            int threshold = (int)Math.ceil(sum * PERCENTILE);
+            int seen = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+
+                if (seen >= threshold) {
+                    return 1L << i;
+                }
+            }
+
+            return 1L << (counts.length - 1);
+        }
+
+        private void decay() {
+            samples = 0;
+
+            for (int i = 0; i < BUCKETS; i++) {
+                partCounts[i] >>= 1;
+                totalCounts[i] >>= 1;
+                samples += partCounts[i];
+            }
+
+            sinceDecay = 0;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 
 import com.marklogic.xcc.ResultItem;
 import com.marklogic.xcc.types.ItemType;
@@ -112,6 +113,10 @@ public class ResultItemImpl implements ResultItem {
         value.writeTo(outputStream);
     }
 
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        return value.transferTo(channel);
+    }
+
     // -------------------------------------------------
     // XdmValue interface adapter
 
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.util.Locale;
+import java.util.TimeZone;
+
+import com.marklogic.xcc.types.XdmItem;
+import com.marklogic.xcc.types.impl.CtsBoxImpl;
+import com.marklogic.xcc.types.impl.CtsCircleImpl;
+import com.marklogic.xcc.types.impl.CtsPointImpl;
+import com.marklogic.xcc.types.impl.CtsPolygonImpl;
+import com.marklogic.xcc.types.impl.XsAnyUriImpl;
+import com.marklogic.xcc.types.impl.XsBase64BinaryImpl;
+import com.marklogic.xcc.types.impl.XsBooleanImpl;
+import com.marklogic.xcc.types.impl.XsDateImpl;
+import com.marklogic.xcc.types.impl.XsDateTimeImpl;
+import com.marklogic.xcc.types.impl.XsDayTimeDurationImpl;
+import com.marklogic.xcc.types.impl.XsDecimalImpl;
+import com.marklogic.xcc.types.impl.XsDoubleImpl;
+import com.marklogic.xcc.types.impl.XsDurationImpl;
+import com.marklogic.xcc.types.impl.XsFloatImpl;
+import com.marklogic.xcc.types.impl.XsGDayImpl;
+import com.marklogic.xcc.types.impl.XsGMonthDayImpl;
+import com.marklogic.xcc.types.impl.XsGMonthImpl;
+import com.marklogic.xcc.types.impl.XsGYearImpl;
+import com.marklogic.xcc.types.impl.XsGYearMonthImpl;
+import com.marklogic.xcc.types.impl.XsHexBinaryImpl;
+import com.marklogic.xcc.types.impl.XsIntegerImpl;
+import com.marklogic.xcc.types.impl.XsQNameImpl;
+import com.marklogic.xcc.types.impl.XsStringImpl;
+import com.marklogic.xcc.types.impl.XsTimeImpl;
+import com.marklogic.xcc.types.impl.XsUntypedAtomicImpl;
+import com.marklogic.xcc.types.impl.XsYearMonthDurationImpl;
+
+/**
+ * The item types a result can carry, keyed by the name the server sends in an
+ * <code>x-primitive</code> header or a compact sequence record. Names are looked up in a small
+ * open-addressed table, either as a String or straight from the characters of a record so that
+ * no String need be made for them, and each entry says how to build its item.
+ */
+final class ResultItemTypes {
+    interface AtomicFactory {
+        XdmItem newItem(String value, TimeZone timezone, Locale locale);
+    }
+
+    enum NodeKind {
+        TEXT, BINARY, DOCUMENT, ELEMENT, ATTRIBUTE, PROCESSING_INSTRUCTION, COMMENT
+    }
+
+    static final class Entry {
+        final String name;
+        // exactly one of these is set
+        final AtomicFactory atomic;
+        final NodeKind node;
+        // in a compact sequence the value is length-prefixed rather than running to end of line
+        final boolean lengthPrefixed;
+
+        private Entry(String name, AtomicFactory atomic, NodeKind node, boolean lengthPrefixed) {
+            this.name = name;
+            this.atomic = atomic;
+            this.node = node;
+            this.lengthPrefixed = lengthPrefixed;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    // a power of two, at least twice the number of entries
+    private static final int TABLE_SIZE = 128;
+
+    private static final Entry[] table = new Entry[TABLE_SIZE];
+
+    static final Entry STRING;
+    static final Entry INTEGER;
+    static final Entry DOUBLE;
+    static final Entry UNTYPED_ATOMIC;
+
+    static {
+        STRING = atomic("string", true, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return new XsStringImpl(value);
+            }
+        });
+        INTEGER = atomic("integer", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsIntegerImpl.lazy(value);
+            }
+        });
+        atomic("anyURI", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return new XsAnyUriImpl(value);
+            }
+        });
+        atomic("QName", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return new XsQNameImpl(value);
+            }
+        });
+        atomic("boolean", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return new XsBooleanImpl(value);
+            }
+        });
+        atomic("decimal", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsDecimalImpl.lazy(value);
+            }
+        });
+        DOUBLE = atomic("double", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsDoubleImpl.lazy(value);
+            }
+        });
+        atomic("float", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsFloatImpl.lazy(value);
+            }
+        });
+        atomic("base64Binary", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsBase64BinaryImpl.lazy(value);
+            }
+        });
+        atomic("hexBinary", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsHexBinaryImpl.lazy(value);
+            }
+        });
+        UNTYPED_ATOMIC = atomic("untypedAtomic", true, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return new XsUntypedAtomicImpl(value);
+            }
+        });
+        // note: treated as xs:untypedAtomic
+        atomic("anySimpleType", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return new XsUntypedAtomicImpl(value);
+            }
+        });
+        atomic("date", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsDateImpl.lazy(value, timezone, locale);
+            }
+        });
+        atomic("dateTime", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsDateTimeImpl.lazy(value, timezone, locale);
+            }
+        });
+        atomic("time", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsTimeImpl.lazy(value, timezone, locale);
+            }
+        });
+        atomic("gDay", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsGDayImpl.lazy(value, timezone, locale);
+            }
+        });
+        atomic("gMonth", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsGMonthImpl.lazy(value, timezone, locale);
+            }
+        });
+        atomic("gMonthDay", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsGMonthDayImpl.lazy(value, timezone, locale);
+            }
+        });
+        atomic("gYear", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsGYearImpl.lazy(value, timezone, locale);
+            }
+        });
+        atomic("gYearMonth", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsGYearMonthImpl.lazy(value, timezone, locale);
+            }
+        });
+        atomic("duration", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsDurationImpl.lazy(value);
+            }
+        });
+        atomic("dayTimeDuration", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsDayTimeDurationImpl.lazy(value);
+            }
+        });
+        atomic("yearMonthDuration", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return XsYearMonthDurationImpl.lazy(value);
+            }
+        });
+        atomic("box", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return new CtsBoxImpl(value);
+            }
+        });
+        atomic("circle", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return new CtsCircleImpl(value);
+            }
+        });
+        atomic("point", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return new CtsPointImpl(value);
+            }
+        });
+        atomic("polygon", false, new AtomicFactory() {
+            public XdmItem newItem(String value, TimeZone timezone, Locale locale) {
+                return new CtsPolygonImpl(value);
+            }
+        });
+
+        node("text()", NodeKind.TEXT);
+        node("binary()", NodeKind.BINARY);
+        node("document-node()", NodeKind.DOCUMENT);
+        node("element()", NodeKind.ELEMENT);
+        node("attribute()", NodeKind.ATTRIBUTE);
+        node("processing-instruction()", NodeKind.PROCESSING_INSTRUCTION);
+        node("comment()", NodeKind.COMMENT);
+        // reproduce pre-5.0 behavior for pre-5.0 server
+        node("node()", NodeKind.ELEMENT);
+    }
+
+    private ResultItemTypes() {
+    }
+
+    /**
+     * @return The entry for the named type, or null if there is none.
+     */
+    static Entry lookup(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        int length = name.length();
+
+        for (int i = name.hashCode() & (TABLE_SIZE - 1);; i = (i + 1) & (TABLE_SIZE - 1)) {
+            Entry entry = table[i];
+
+            if ((entry == null) || (entry.name == name)) {
+                return entry;
+            }
+
+            if ((entry.name.length() == length) && entry.name.equals(name)) {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * Look up a type name held in a byte buffer. Type names are ASCII, so the bytes hash the
+     * same as the name would.
+     *
+     * @return The entry for the named type, or null if there is none.
+     */
+    static Entry lookup(byte[] buf, int offset, int length) {
+        int hash = 0;
+
+        for (int i = offset; i < offset + length; i++) {
+            hash = (31 * hash) + (buf[i] & 0xFF);
+        }
+
+        for (int i = hash & (TABLE_SIZE - 1);; i = (i + 1) & (TABLE_SIZE - 1)) {
+            Entry entry = table[i];
+
+            if ((entry == null) || regionMatches(entry.name, buf, offset, length)) {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * Every type that is built from a string value rather than being a node.
+     */
+    static String[] atomicTypeNames() {
+        int count = 0;
+
+        for (Entry entry : table) {
+            if ((entry != null) && (entry.atomic != null)) {
+                count++;
+            }
+        }
+
+        String[] names = new String[count];
+
+        for (Entry entry : table) {
+            if ((entry != null) && (entry.atomic != null)) {
+                names[--count] = entry.name;
+            }
+        }
+
+        return names;
+    }
+
+    // ----------------------------------------------------------------
+
+    private static Entry atomic(String name, boolean lengthPrefixed, AtomicFactory factory) {
+        return add(new Entry(name, factory, null, lengthPrefixed));
+    }
+
+    private static Entry node(String name, NodeKind kind) {
+        return add(new Entry(name, null, kind, false));
+    }
+
+    private static Entry add(Entry entry) {
+        int i = entry.name.hashCode() & (TABLE_SIZE - 1);
+
+        while (table[i] != null) {
+            i = (i + 1) & (TABLE_SIZE - 1);
+        }
+
+        table[i] = entry;
+
+        return entry;
+    }
+
+    private static boolean regionMatches(String name, byte[] buf, int offset, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != buf[offset + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
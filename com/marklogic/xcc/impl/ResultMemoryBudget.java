@@ -0,0 +1,117 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.marklogic.xcc.Request;
+
+/**
+ * The number of bytes of result data the cached {@link com.marklogic.xcc.ResultSequence}s of one
+ * {@link ContentSourceImpl} being read at the same time may hold in memory. Items that don't fit
+ * are spilled to disk. A result gives its bytes back once it has been read in full, or when
+ * reading it fails. A limit of zero means no limit, in which case nothing is tracked. The initial
+ * limit is taken from the {@value #LIMIT_SYSTEM_PROPERTY} system property.
+ */
+public class ResultMemoryBudget {
+    public static final String LIMIT_SYSTEM_PROPERTY = "xcc.result.cache.memory.limit";
+
+    private volatile long limit = Long.getLong(LIMIT_SYSTEM_PROPERTY, 0L).longValue();
+    private final AtomicLong used = new AtomicLong();
+
+    static ResultMemoryBudget forRequest(Request request) {
+        if (request == null) {
+            return null;
+        }
+
+        Object cs = request.getSession().getContentSource();
+
+        if (!(cs instanceof ContentSourceImpl)) {
+            return null;
+        }
+
+        return ((ContentSourceImpl)cs).getResultMemoryBudget();
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public void setLimit(long limit) {
+        this.limit = limit;
+    }
+
+    public long getUsed() {
+        return used.get();
+    }
+
+    /**
+     * Claim bytes from the budget.
+     * 
+     * @return true if they fit (or there is no limit), false if nothing was claimed.
+     */
+    boolean reserve(long bytes) {
+        long max = limit;
+
+        if (max <= 0) {
+            return true;
+        }
+
+        while (true) {
+            long current = used.get();
+
+            if ((current + bytes) > max) {
+                return false;
+            }
+
+            if (used.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    void release(long bytes) {
+        if (bytes != 0) {
+            used.addAndGet(-bytes);
+        }
+    }
+
+    Reservation newReservation() {
+        return new Reservation();
+    }
+
+    /**
+     * The bytes claimed by one cached result while it is read.
+     */
+    class Reservation {
+        private long bytes = 0;
+
+        synchronized boolean reserve(long more) {
+            if (!ResultMemoryBudget.this.reserve(more)) {
+                return false;
+            }
+
+            bytes += more;
+
+            return true;
+        }
+
+        synchronized void release() {
+            ResultMemoryBudget.this.release(bytes);
+            bytes = 0;
+        }
+    }
+}
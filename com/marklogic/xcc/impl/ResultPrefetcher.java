@@ -0,0 +1,231 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.util.LinkedList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.marklogic.xcc.ResultItem;
+
+/**
+ * Reads, decodes and caches items of a {@link StreamingResultSequence} on a background thread,
+ * ahead of the consumer, into a queue bounded by item count and (optionally) bytes. The
+ * connection is released by the reader as soon as the terminal boundary has been read.
+ * <p>
+ * The reader runs on a bounded pool of daemon threads and only holds a thread while it is
+ * reading. When the queue is full it returns its thread to the pool, and is resubmitted once the
+ * consumer has made room.
+ * </p>
+ */
+class ResultPrefetcher implements Runnable {
+    public static final String THREADS_SYSTEM_PROPERTY = "xcc.prefetch.threads";
+
+    private static final ThreadPoolExecutor executor;
+
+    static {
+        int threads = Integer.getInteger(THREADS_SYSTEM_PROPERTY, Math.max(4, Runtime.getRuntime()
+                .availableProcessors()));
+
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("xcc-result-prefetch-"));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private final StreamingResultSequence rs;
+    private final int maxItems;
+    private final long maxBytes;
+    private final LinkedList<Entry> queue = new LinkedList<Entry>();
+    private long queuedBytes = 0;
+    private int index = 0;
+    private boolean stopped = false;
+    private boolean finished = false;
+    // the reader is queued on or running in the pool
+    private boolean scheduled = false;
+    // the reader is using the stream
+    private boolean reading = false;
+
+    ResultPrefetcher(StreamingResultSequence rs, int maxItems, long maxBytes) {
+        this.rs = rs;
+        this.maxItems = Math.max(maxItems, 1);
+        this.maxBytes = maxBytes;
+    }
+
+    void start() {
+        synchronized (this) {
+            scheduled = true;
+        }
+
+        executor.execute(this);
+    }
+
+    // ----------------------------------------------------------------
+    // consumer side
+
+    /**
+     * Blocks until the next item is available, or the end of the sequence is reached.
+     *
+     * @return The next item, or null at end of sequence.
+     * @throws Throwable
+     *             The exception thrown by the reader while producing this item.
+     */
+    synchronized ResultItem peek() throws Throwable {
+        while (queue.isEmpty()) {
+            if (finished) {
+                return null;
+            }
+
+            wait();
+        }
+
+        Entry entry = queue.getFirst();
+
+        if (entry.failure != null) {
+            throw entry.failure;
+        }
+
+        return entry.item;
+    }
+
+    ResultItem take() throws Throwable {
+        boolean resume;
+        ResultItem item;
+
+        synchronized (this) {
+            item = peek();
+
+            if (item == null) {
+                return null;
+            }
+
+            Entry entry = queue.removeFirst();
+
+            queuedBytes -= entry.bytes;
+            resume = !scheduled && !finished && !stopped && hasRoom();
+
+            if (resume) {
+                scheduled = true;
+            }
+        }
+
+        if (resume) {
+            executor.execute(this);
+        }
+
+        return item;
+    }
+
+    /**
+     * Stop reading ahead. Queued items are discarded. This does not wait for the reader.
+     *
+     * @return true if the reader is in the middle of reading from the stream, in which case the
+     *         caller must not touch the stream and should drop the connection instead. If false,
+     *         the reader will not read from the stream again.
+     */
+    synchronized boolean stop() {
+        stopped = true;
+        queue.clear();
+        queuedBytes = 0;
+
+        notifyAll();
+
+        return reading;
+    }
+
+    // ----------------------------------------------------------------
+    // reader side
+
+    public void run() {
+        try {
+            while (startRead()) {
+                long before = rs.getTotalBytesRead();
+                ResultItem item = rs.readItem(index);
+
+                if (item == null) {
+                    rs.releaseStream();
+                    finish(null);
+                    return;
+                }
+
+                item.cache();
+                index++;
+
+                enqueue(new Entry(item, null, rs.getTotalBytesRead() - before));
+            }
+        } catch (Throwable t) {
+            finish(new Entry(null, t, 0));
+        }
+    }
+
+    // Claim the stream for the next read, or give up the thread if stopped or
+    // the queue is full
+    private synchronized boolean startRead() {
+        if (stopped || !hasRoom()) {
+            scheduled = false;
+            reading = false;
+
+            return false;
+        }
+
+        reading = true;
+
+        return true;
+    }
+
+    private synchronized boolean hasRoom() {
+        return (queue.size() < maxItems) && ((maxBytes <= 0) || (queuedBytes < maxBytes));
+    }
+
+    private synchronized void enqueue(Entry entry) {
+        reading = false;
+
+        if (stopped) {
+            return;
+        }
+
+        queue.addLast(entry);
+        queuedBytes += entry.bytes;
+
+        notifyAll();
+    }
+
+    private synchronized void finish(Entry failure) {
+        if ((failure != null) && !stopped) {
+            queue.addLast(failure);
+        }
+
+        finished = true;
+        scheduled = false;
+        reading = false;
+
+        notifyAll();
+    }
+
+    // ----------------------------------------------------------------
+
+    private static class Entry {
+        final ResultItem item;
+        final Throwable failure;
+        final long bytes;
+
+        Entry(ResultItem item, Throwable failure, long bytes) {
+            this.item = item;
+            this.failure = failure;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+import com.marklogic.xcc.ResultItem;
+import com.marklogic.xcc.StringColumn;
+import com.marklogic.xcc.types.XSDouble;
+import com.marklogic.xcc.types.XSFloat;
+import com.marklogic.xcc.types.XSInteger;
+import com.marklogic.xcc.types.XdmItem;
+import com.marklogic.xcc.types.impl.XsIntegerImpl;
+
+/**
+ * Accumulators for the bulk projections of a {@link com.marklogic.xcc.ResultSequence} (
+ * {@link com.marklogic.xcc.ResultSequence#asLongArray()} and friends). Values are taken either
+ * from already decoded items, or straight from the raw bytes of a result part, in which case no
+ * per-item objects are created for plain numeric values.
+ */
+abstract class ResultProjector {
+    private static final int INITIAL_CAPACITY = 64;
+    // the largest power of ten exactly representable as a double
+    private static final int MAX_EXACT_POW10 = 22;
+    private static final double[] POW10 = new double[MAX_EXACT_POW10 + 1];
+
+    static {
+        POW10[0] = 1.0;
+
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10.0;
+        }
+    }
+
+    protected int size = 0;
+
+    /**
+     * Add the value in the UTF-8 body of a result part.
+     */
+    abstract void add(byte[] buf, int len);
+
+    /**
+     * Add a value that has already been decoded to a String.
+     */
+    abstract void add(String value);
+
+    /**
+     * Add the value of a decoded item.
+     */
+    void add(ResultItem item) {
+        add(item.asString());
+    }
+
+    // ----------------------------------------------------------------
+
+    static class Longs extends ResultProjector {
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        @Override
+        void add(byte[] buf, int len) {
+            append(parseLong(buf, len));
+        }
+
+        @Override
+        void add(String value) {
+            append(Long.parseLong(value));
+        }
+
+        @Override
+        void add(ResultItem item) {
+            XdmItem value = item.getItem();
+
+            if (value instanceof XsIntegerImpl) {
+                XsIntegerImpl integer = (XsIntegerImpl)value;
+
+                if (!integer.fitsLong()) {
+                    throw new NumberFormatException("Value out of range for long: " + integer.asString());
+                }
+
+                append(integer.asPrimitiveLong());
+            } else if (value instanceof XSInteger) {
+                XSInteger integer = (XSInteger)value;
+
+                if (integer.asBigInteger().bitLength() > 63) {
+                    throw new NumberFormatException("Value out of range for long: " + integer.asString());
+                }
+
+                append(integer.asPrimitiveLong());
+            } else {
+                add(item.asString());
+            }
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        private void append(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            values[size++] = value;
+        }
+    }
+
+    static class Doubles extends ResultProjector {
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        @Override
+        void add(byte[] buf, int len) {
+            append(parseDouble(buf, len));
+        }
+
+        @Override
+        void add(String value) {
+            append(Double.parseDouble(scrubbedDouble(value)));
+        }
+
+        @Override
+        void add(ResultItem item) {
+            XdmItem value = item.getItem();
+
+            if (value instanceof XSDouble) {
+                append(((XSDouble)value).asPrimitiveDouble());
+            } else if (value instanceof XSFloat) {
+                append(((XSFloat)value).asPrimitiveFloat());
+            } else {
+                add(item.asString());
+            }
+        }
+
+        double[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        private void append(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            values[size++] = value;
+        }
+    }
+
+    static class Strings extends ResultProjector {
+        private char[] chars = new char[INITIAL_CAPACITY * 8];
+        private int[] offsets = new int[INITIAL_CAPACITY + 1];
+
+        @Override
+        void add(byte[] buf, int len) {
+            ensureChars(len);
+
+            int pos = offsets[size];
+
+            for (int i = 0; i < len; i++) {
+                byte b = buf[i];
+
+                if (b < 0) {
+                    // not plain ASCII, let the platform decode it
+                    add(utf8String(buf, len));
+                    return;
+                }
+
+                chars[pos + i] = (char)b;
+            }
+
+            appendOffset(pos + len);
+        }
+
+        @Override
+        void add(String value) {
+            int len = value.length();
+
+            ensureChars(len);
+
+            int pos = offsets[size];
+
+            value.getChars(0, len, chars, pos);
+
+            appendOffset(pos + len);
+        }
+
+        StringColumn toColumn() {
+            return new StringColumnImpl(Arrays.copyOf(chars, offsets[size]), Arrays.copyOf(offsets, size + 1), size);
+        }
+
+        private void ensureChars(int len) {
+            int needed = offsets[size] + len;
+
+            if (needed > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(needed, chars.length * 2));
+            }
+        }
+
+        private void appendOffset(int end) {
+            if (size + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+
+            offsets[++size] = end;
+        }
+    }
+
+    // ----------------------------------------------------------------
+
+    /**
+     * Parse an xs:integer lexical value. Up to 18 digits are accumulated directly, anything
+     * longer (or malformed) is left to {@link Long#parseLong(String)}.
+     */
+    static long parseLong(byte[] buf, int len) {
+        int i = 0;
+        boolean negative = false;
+
+        if ((len > 0) && ((buf[0] == '-') || (buf[0] == '+'))) {
+            negative = (buf[0] == '-');
+            i++;
+        }
+
+        if ((i == len) || ((len - i) > 18)) {
+            return Long.parseLong(utf8String(buf, len));
+        }
+
+        long value = 0;
+
+        for (; i < len; i++) {
+            int digit = buf[i] - '0';
+
+            if ((digit < 0) || (digit > 9)) {
+                return Long.parseLong(utf8String(buf, len));
+            }
+
+            value = (value * 10) + digit;
+        }
+
+        return (negative) ? -value : value;
+    }
+
+    /**
+     * Parse an xs:double (or xs:decimal, xs:integer, xs:float) lexical value. Values with at most
+     * 15 significant digits and a small exponent are exact as one multiplication or division by
+     * a power of ten, anything else is left to {@link Double#parseDouble(String)}.
+     */
+    static double parseDouble(byte[] buf, int len) {
+        int i = 0;
+        boolean negative = false;
+
+        if ((len > 0) && ((buf[0] == '-') || (buf[0] == '+'))) {
+            negative = (buf[0] == '-');
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+
+        for (; i < len; i++) {
+            byte b = buf[i];
+
+            if ((b >= '0') && (b <= '9')) {
+                seenDigit = true;
+
+                if ((mantissa != 0) || (b != '0')) {
+                    if (++digits > 15) {
+                        return slowParseDouble(buf, len);
+                    }
+
+                    mantissa = (mantissa * 10) + (b - '0');
+                }
+
+                if (seenPoint) {
+                    exponent--;
+                }
+            } else if ((b == '.') && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+
+        if (!seenDigit) {
+            return slowParseDouble(buf, len);
+        }
+
+        if (i < len) {
+            if ((buf[i] != 'e') && (buf[i] != 'E')) {
+                return slowParseDouble(buf, len);
+            }
+
+            i++;
+
+            boolean negativeExp = false;
+
+            if ((i < len) && ((buf[i] == '-') || (buf[i] == '+'))) {
+                negativeExp = (buf[i] == '-');
+                i++;
+            }
+
+            if ((i == len) || ((len - i) > 3)) {
+                return slowParseDouble(buf, len);
+            }
+
+            int exp = 0;
+
+            for (; i < len; i++) {
+                int digit = buf[i] - '0';
+
+                if ((digit < 0) || (digit > 9)) {
+                    return slowParseDouble(buf, len);
+                }
+
+                exp = (exp * 10) + digit;
+            }
+
+            exponent += (negativeExp) ? -exp : exp;
+        }
+
+        double value = mantissa;
+
+        if (mantissa != 0) {
+            if (exponent < -MAX_EXACT_POW10 || exponent > MAX_EXACT_POW10) {
+                return slowParseDouble(buf, len);
+            }
+
+            value = (exponent < 0) ? (value / POW10[-exponent]) : (value * POW10[exponent]);
+        }
+
+        return (negative) ? -value : value;
+    }
+
+    // ----------------------------------------------------------------
+
+    private static double slowParseDouble(byte[] buf, int len) {
+        return Double.parseDouble(scrubbedDouble(utf8String(buf, len)));
+    }
+
+    // XQuery spells infinity INF
+    private static String scrubbedDouble(String value) {
+        if (value.equalsIgnoreCase("INF") || value.equalsIgnoreCase("+INF")) {
+            return "Infinity";
+        }
+        if (value.equalsIgnoreCase("-INF")) {
+            return "-Infinity";
+        }
+
+        return value;
+    }
+
+    private static String utf8String(byte[] buf, int len) {
+        try {
+            return new String(buf, 0, len, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is required on all compliant JVMs
+            return new String(buf, 0, len);
+        }
+    }
+}
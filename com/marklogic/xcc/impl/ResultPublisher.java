@@ -0,0 +1,223 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import com.marklogic.xcc.Request;
+import com.marklogic.xcc.ResultItem;
+import com.marklogic.xcc.ResultSequence;
+
+/**
+ * Publishes the result of one request to one subscriber. The request is submitted when the first
+ * demand arrives, and items are read and decoded on a shared pool thread only while there is
+ * outstanding demand. When there is none, no thread is held and the unread response stays in the
+ * socket, so a slow subscriber slows the server down rather than filling the heap. A pool thread
+ * emits at most {@link #BATCH_SIZE} items before handing the rest of the work back to the pool, so
+ * a subscriber with unbounded demand does not keep a thread from the other publishers. The
+ * connection is released on completion, error or cancel.
+ */
+class ResultPublisher implements Flow.Publisher<ResultItem> {
+    public static final String THREADS_SYSTEM_PROPERTY = "xcc.publisher.threads";
+
+    static final int BATCH_SIZE = 64;
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+            Integer.getInteger(THREADS_SYSTEM_PROPERTY, Math.max(4, Runtime.getRuntime().availableProcessors())),
+            new DaemonThreadFactory("xcc-result-publisher-"));
+
+    private final SessionImpl session;
+    private final Request request;
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    ResultPublisher(SessionImpl session, Request request) {
+        this.session = session;
+        this.request = request;
+    }
+
+    public void subscribe(Flow.Subscriber<? super ResultItem> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                public void request(long n) {
+                }
+
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("This publisher allows only one subscriber"));
+
+            return;
+        }
+
+        ResultSubscription subscription = new ResultSubscription(subscriber, executor);
+
+        subscriber.onSubscribe(subscription);
+    }
+
+    // ----------------------------------------------------------------
+
+    private class ResultSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super ResultItem> subscriber;
+        private final Executor executor;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile Throwable badRequest = null;
+        // only touched from run(), which never runs concurrently with itself
+        private ResultSequence rs = null;
+        private boolean done = false;
+
+        ResultSubscription(Flow.Subscriber<? super ResultItem> subscriber, Executor executor) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+        }
+
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                long current;
+
+                do {
+                    current = demand.get();
+
+                    if (current == Long.MAX_VALUE) {
+                        break;
+                    }
+                } while (!demand.compareAndSet(current, (current + n < 0) ? Long.MAX_VALUE : current + n));
+            }
+
+            schedule();
+        }
+
+        public void cancel() {
+            cancelled = true;
+
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        public void run() {
+            int missed = 1;
+
+            do {
+                if (drain()) {
+                    // more to emit, go to the back of the queue, still holding wip so nothing
+                    // else schedules this subscription meanwhile
+                    executor.execute(this);
+                    return;
+                }
+
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        // returns true if it stopped after a full batch with demand left
+        private boolean drain() {
+            if (done) {
+                return false;
+            }
+
+            if (cancelled) {
+                finish();
+                return false;
+            }
+
+            if (badRequest != null) {
+                fail(badRequest);
+                return false;
+            }
+
+            try {
+                for (int emitted = 0; demand.get() > 0; emitted++) {
+                    if (emitted == BATCH_SIZE) {
+                        return true;
+                    }
+
+                    if (rs == null) {
+                        rs = session.submitRequest(request);
+
+                        // the subscriber may hold on to items, so they must be distinct
+                        if (rs instanceof AbstractResultSequence) {
+                            ((AbstractResultSequence)rs).recycler = null;
+                        }
+                    }
+
+                    if (cancelled) {
+                        finish();
+                        return false;
+                    }
+
+                    if (!rs.hasNext()) {
+                        finish();
+                        subscriber.onComplete();
+                        return false;
+                    }
+
+                    ResultItem item = rs.next();
+
+                    // and past the next read
+                    item.cache();
+
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+
+                    subscriber.onNext(item);
+                }
+            } catch (Throwable t) {
+                fail(t);
+            }
+
+            return false;
+        }
+
+        private void fail(Throwable t) {
+            finish();
+            subscriber.onError(t);
+        }
+
+        private void finish() {
+            done = true;
+
+            if (rs != null) {
+                try {
+                    rs.close();
+                } catch (RuntimeException e) {
+                    session.getLogger().log(Level.WARNING, "Exception closing published ResultSequence", e);
+                }
+
+                rs = null;
+            }
+        }
+    }
+}
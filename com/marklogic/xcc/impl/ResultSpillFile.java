@@ -0,0 +1,112 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Raw result parts of a cached result that did not fit its memory budget, appended to a temp
+ * file while the result is read and read back by position afterwards. Only the record offsets
+ * are kept on the heap.
+ */
+class ResultSpillFile extends RawPartStore {
+    // closes and deletes the files of result sequences dropped without being closed
+    private static final Cleaner cleaner = Cleaner.create(new DaemonThreadFactory("xcc-result-spill-cleaner-"));
+
+    private final Files files;
+    private final Cleaner.Cleanable cleanable;
+
+    ResultSpillFile() throws IOException {
+        File file = File.createTempFile("xcc-result", ".spill");
+
+        file.deleteOnExit();
+        files = new Files(file);
+        cleanable = cleaner.register(this, files);
+        files.out = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+    }
+
+    @Override
+    void finish() throws IOException {
+        files.out.close();
+        files.out = null;
+        files.channel = new RandomAccessFile(files.file, "r").getChannel();
+    }
+
+    @Override
+    void close() {
+        cleanable.clean();
+    }
+
+    // ----------------------------------------------------------------
+
+    @Override
+    protected void write(byte[] buf, int off, int len) throws IOException {
+        files.out.write(buf, off, len);
+    }
+
+    @Override
+    protected DataInputStream open(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        while (buffer.hasRemaining()) {
+            if (files.channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected EOF in result spill file " + files.file);
+            }
+        }
+
+        return new DataInputStream(new ByteArrayInputStream(buffer.array()));
+    }
+
+    // ----------------------------------------------------------------
+
+    // must not refer to the ResultSpillFile, or the cleaner would never run
+    private static class Files implements Runnable {
+        final File file;
+        volatile OutputStream out = null;
+        volatile FileChannel channel = null;
+
+        Files(File file) {
+            this.file = file;
+        }
+
+        public void run() {
+            try {
+                if (out != null) {
+                    out.close();
+                }
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                // nothing useful to do, the file is going away
+            } finally {
+                out = null;
+                channel = null;
+                file.delete();
+            }
+        }
+    }
+}
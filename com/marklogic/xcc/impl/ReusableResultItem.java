@@ -0,0 +1,151 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+
+import com.marklogic.xcc.ResultItem;
+import com.marklogic.xcc.types.ItemType;
+import com.marklogic.xcc.types.ValueType;
+import com.marklogic.xcc.types.XdmItem;
+import com.marklogic.xcc.types.impl.StreamableItem;
+
+/**
+ * A {@link ResultItem} that is refilled for each item of a streaming result, rather than made
+ * anew. Once marked stale, every method throws.
+ */
+class ReusableResultItem implements ResultItem {
+    private XdmItem value;
+    private int index;
+    private String uri;
+    private String path;
+    private boolean stale = false;
+
+    void set(XdmItem value, int index, String uri, String path) {
+        this.value = value;
+        this.index = index;
+        this.uri = uri;
+        this.path = ((uri != null) && (path == null)) ? "/" : path;
+    }
+
+    void markStale() {
+        stale = true;
+        value = null;
+    }
+
+    private XdmItem value() {
+        if (stale) {
+            throw new IllegalStateException("Reused ResultItem " + index
+                    + " accessed after the ResultSequence moved past it");
+        }
+
+        return value;
+    }
+
+    // -------------------------------------------------
+    // ResultItem interface methods
+
+    public String getDocumentURI() {
+        value();
+
+        return uri;
+    }
+
+    public String getNodePath() {
+        value();
+
+        return path;
+    }
+
+    public XdmItem getItem() {
+        return value();
+    }
+
+    public int getIndex() {
+        value();
+
+        return index;
+    }
+
+    public boolean isFetchable() {
+        XdmItem item = value();
+
+        if (item.isCached()) {
+            return true;
+        }
+
+        if (item instanceof StreamableItem) {
+            return ((StreamableItem)item).isFetchable();
+        }
+
+        return false;
+    }
+
+    public void cache() {
+        XdmItem item = value();
+
+        if (!item.isCached()) {
+            item.asString();
+        }
+    }
+
+    // -------------------------------------------------
+    // XdmItem interface adapter
+
+    public ItemType getItemType() {
+        return value().getItemType();
+    }
+
+    public Reader asReader() {
+        return value().asReader();
+    }
+
+    public InputStream asInputStream() {
+        return value().asInputStream();
+    }
+
+    public String asString() {
+        return value().asString();
+    }
+
+    public boolean isCached() {
+        return value().isCached();
+    }
+
+    public void writeTo(Writer writer) throws IOException {
+        value().writeTo(writer);
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        value().writeTo(outputStream);
+    }
+
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        return value().transferTo(channel);
+    }
+
+    // -------------------------------------------------
+    // XdmValue interface adapter
+
+    public ValueType getValueType() {
+        return value().getValueType();
+    }
+}
@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Flow;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 import java.io.IOException;
@@ -35,6 +36,7 @@ import com.marklogic.xcc.ContentSource;
 import com.marklogic.xcc.ContentbaseMetaData;
 import com.marklogic.xcc.ModuleInvoke;
 import com.marklogic.xcc.ModuleSpawn;
+import com.marklogic.xcc.PagedResultCursor;
 import com.marklogic.xcc.Request;
 import com.marklogic.xcc.RequestOptions;
 import com.marklogic.xcc.ResultItem;
@@ -64,6 +66,7 @@ public class SessionImpl implements Session {
     private XAResourceImpl xaResource = null;
     private Logger logger = null;
     private RequestOptions defaultOptions = new RequestOptions();
+    private volatile RequestImpl.EffectiveOptions effectiveOptions = null; // last merged defaults
     String sessionID = null;
     String txnID = null;
     private TransactionMode txnMode = TransactionMode.AUTO;
@@ -319,7 +322,7 @@ public class SessionImpl implements Session {
     }
 
     private void assertNoTimeStamp(Request request) throws RequestException {
-        RequestOptions options = getEffectiveRequestOptions();
+        RequestOptions options = effectiveRequestOptions();
 
         if (options.getEffectivePointInTime() == null) {
             return;
@@ -371,6 +374,50 @@ public class SessionImpl implements Session {
         return submitRequestInternal((RequestImpl)request);
     }
 
+    public Flow.Publisher<ResultItem> submitRequestPublisher(Request request) {
+        assertSessionOpen();
+
+        if ((request.getSession() != this) || (!(request instanceof RequestImpl))) {
+            throwIllegalArg("Request object was not created by this session", getLogger());
+        }
+
+        return new ResultPublisher(this, request);
+    }
+
+    public PagedResultCursor submitRequestPaged(Request request, long pageSize) throws RequestException {
+        assertSessionOpen();
+
+        if ((request.getSession() != this) || (!(request instanceof RequestImpl))) {
+            throwIllegalArg("Request object was not created by this session", getLogger());
+        }
+
+        if (pageSize <= 0) {
+            throwIllegalArg("Page size must be greater than zero: " + pageSize, getLogger());
+        }
+
+        createTransaction(request);
+
+        RequestOptions options = request.getEffectiveOptions();
+
+        if ((options.getEffectivePointInTime() == null) || options.getEffectivePointInTime().equals(BigInteger.ZERO)) {
+            options.setEffectivePointInTime(getCurrentServerPointInTime());
+        }
+
+        return new PagedResultCursorImpl(this, (RequestImpl)request, options, pageSize, getTxnID() == null);
+    }
+
+    // Run the request with the given options and subsequence range in place of its own. A request
+    // run on another thread (a prefetch) leaves this session's state alone, as it isn't thread-safe.
+    ResultSequence submitRequestRange(RequestImpl req, RequestOptions options, long position, long count,
+            boolean otherThread) throws RequestException {
+        EvalRequestController controller = new EvalRequestController(req.serverPath(), req.encodedQuery(
+                getLogger(), options, position, count));
+
+        controller.setSessionUpdated(!otherThread);
+
+        return controller.runRequest(provider, req, getLogger());
+    }
+
     private void createTransaction(Request request) throws RequestException {
         if((getTxnID() == null && txnMode != TransactionMode.AUTO) || txnModeChanged) {
             // Set the new transaction mode on the server, creating a new
@@ -384,7 +431,7 @@ public class SessionImpl implements Session {
     }
 
     ResultSequence submitRequestInternal(RequestImpl req) throws RequestException {
-        EvalRequestController controller =  new EvalRequestController(req.serverPath(), req.encodedQueryString(getLogger())); 
+        EvalRequestController controller = new EvalRequestController(req.serverPath(), req.encodedQuery(getLogger()));
         return controller.runRequest(provider, req, getLogger());
     }
 
@@ -445,12 +492,23 @@ public class SessionImpl implements Session {
     }
 
     public RequestOptions getEffectiveRequestOptions() {
-        RequestOptions eff = new RequestOptions();
+        return new RequestOptions(effectiveRequestOptions());
+    }
+
+    // Merged again only when the default options are replaced or changed.
+    // The result is shared and must not be modified.
+    RequestOptions effectiveRequestOptions() {
         RequestOptions ses = getDefaultRequestOptions();
+        RequestImpl.EffectiveOptions eff = effectiveOptions;
+
+        if ((eff != null) && eff.isFor(ses, null)) {
+            return eff.options;
+        }
 
-        eff.applyEffectiveValues(new RequestOptions[] { ses });
+        eff = new RequestImpl.EffectiveOptions(ses, null);
+        effectiveOptions = eff;
 
-        return eff;
+        return eff.options;
     }
 
     public ConnectionProvider getProvider() {
@@ -100,7 +100,7 @@ public class SocketPoolProvider implements ConnectionProvider, SingleHostAddress
             socket.setKeepAlive(true);
 
             if (request != null) {
-                RequestOptions options = request.getEffectiveOptions();
+                RequestOptions options = RequestImpl.effectiveOptions(request);
                 int timeout = options.getTimeoutMillis();
 
                 if (timeout >= 0) {
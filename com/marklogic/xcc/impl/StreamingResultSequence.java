@@ -16,13 +16,19 @@
 package com.marklogic.xcc.impl;
 
 import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.marklogic.http.MultipartBuffer;
 import com.marklogic.xcc.RequestOptions;
@@ -30,6 +36,7 @@ import com.marklogic.xcc.ResultChannelName;
 import com.marklogic.xcc.ResultItem;
 import com.marklogic.xcc.ResultSequence;
 import com.marklogic.xcc.Request;
+import com.marklogic.xcc.StringColumn;
 import com.marklogic.xcc.exceptions.StreamingResultException;
 import com.marklogic.xcc.spi.ServerConnection;
 import com.marklogic.xcc.types.ValueType;
@@ -48,6 +55,9 @@ public class StreamingResultSequence extends AbstractResultSequence {
     private int cursor = -1;
     private ResultItem currentItem = null;
     private IteratorAdapter currentIterator = null;
+    private boolean shapeRecorded = false;
+    private final ResultPrefetcher prefetcher;
+    private final Object streamLock = new Object();
 
     public StreamingResultSequence(Request request, ServerConnection connection, MultipartBuffer mbuf,
             RequestOptions options, Logger logger) {
@@ -61,6 +71,18 @@ public class StreamingResultSequence extends AbstractResultSequence {
         startTime = System.currentTimeMillis();
 
         session.registerResultSequence(this);
+
+        if (options.getStreamingPrefetchItems() > 0) {
+            prefetcher = new ResultPrefetcher(this, options.getStreamingPrefetchItems(),
+                    options.getStreamingPrefetchBytes());
+            prefetcher.start();
+        } else {
+            prefetcher = null;
+
+            if (options.getStreamingItemReuse()) {
+                recycler = new ItemRecycler();
+            }
+        }
     }
 
     // ----------------------------------------------------------
@@ -89,22 +111,69 @@ public class StreamingResultSequence extends AbstractResultSequence {
 
         session.deRegisterResultSequence(this);
 
-        long now = System.currentTimeMillis();
+        if ((prefetcher != null) && prefetcher.stop()) {
+            // The reader is blocked on the socket, rather than wait for it
+            // drop the connection, which makes its read fail.
+            abortStream();
+            return;
+        }
 
-        try {
-            mbuf.close();
-        } catch (IOException e) {
-            String msg = "IOException closing streaming ResultSequence: " + e.getMessage();
+        releaseStream();
+    }
 
-            logger.log(Level.WARNING, msg, e);
+    private void abortStream() {
+        synchronized (streamLock) {
+            if (connection == null) {
+                return;
+            }
 
-            throw new StreamingResultException(msg, this, e);
-        } finally {
+            logger.fine("closing connection to abort read ahead");
+
+            connection.close();
             connection.provider().returnConnection(connection, logger);
             connection = null;
         }
     }
 
+    // Flush the remainder of the stream and give back the connection, or drop the
+    // connection if the remainder exceeds the drain threshold. Called on close, or
+    // by the prefetch reader as soon as it has seen the terminal boundary.
+    void releaseStream() {
+        synchronized (streamLock) {
+            if (connection == null) {
+                return;
+            }
+
+            long drainThreshold = options.getStreamingDrainThreshold();
+            boolean drained = true;
+
+            try {
+                if (drainThreshold > 0) {
+                    drained = mbuf.close(drainThreshold);
+                } else {
+                    mbuf.close();
+                }
+            } catch (IOException e) {
+                String msg = "IOException closing streaming ResultSequence: " + e.getMessage();
+
+                logger.log(Level.WARNING, msg, e);
+
+                throw new StreamingResultException(msg, this, e);
+            } finally {
+                if (!drained) {
+                    // Too much left to read, drop the connection rather than
+                    // pull the rest of the result over the wire.
+                    logger.fine("unread result exceeds drain threshold, closing connection");
+
+                    connection.close();
+                }
+
+                connection.provider().returnConnection(connection, logger);
+                connection = null;
+            }
+        }
+    }
+
     public boolean isClosed() {
         return closed;
     }
@@ -118,8 +187,18 @@ public class StreamingResultSequence extends AbstractResultSequence {
             invalidateCurrentIterator();
         }
 
+        if (prefetcher != null) {
+            return (prefetched(false) != null);
+        }
+
         try {
-            return (sequencePart != null) || mbuf.hasNext();
+            if ((sequencePart != null) || mbuf.hasNext()) {
+                return true;
+            }
+
+            recordResultShape();
+
+            return false;
         } catch (IOException e) {
             String msg = "IOException in streaming ResultSequence hasNext(): " + e.getMessage();
 
@@ -142,11 +221,20 @@ public class StreamingResultSequence extends AbstractResultSequence {
 
         cursor++;
 
+        if (prefetcher != null) {
+            currentItem = prefetched(true);
+
+            if (currentItem == null) {
+                cursor = -1;
+            }
+
+            return currentItem;
+        }
+
         try {
-            if ((sequencePart != null) || mbuf.hasNext()) {
-                currentItem = instantiateResultItem(mbuf, cursor, options);
-            } else {
-                currentItem = null;
+            currentItem = readItem(cursor);
+
+            if (currentItem == null) {
                 cursor = -1;
             }
         } catch(RequestException e) {
@@ -166,6 +254,29 @@ public class StreamingResultSequence extends AbstractResultSequence {
         return (next(null));
     }
 
+    // Reads the next item off the stream, or returns null at the end
+    ResultItem readItem(int index) throws RequestException, IOException {
+        if ((sequencePart != null) || mbuf.hasNext()) {
+            return instantiateResultItem(mbuf, index, options);
+        }
+
+        recordResultShape();
+
+        return null;
+    }
+
+    private ResultItem prefetched(boolean consume) {
+        try {
+            return (consume) ? prefetcher.take() : prefetcher.peek();
+        } catch (StreamingResultException e) {
+            throw e;
+        } catch (Throwable t) {
+            String msg = "Exception reading ahead in streaming ResultSequence: " + t.getMessage();
+            logger.log(Level.SEVERE, msg, t);
+            throw new StreamingResultException(msg, this, t);
+        }
+    }
+
     public ResultItem current() {
         assertNotClosed();
 
@@ -195,12 +306,27 @@ public class StreamingResultSequence extends AbstractResultSequence {
     public ResultSequence toCached() {
         assertNotClosed();
 
+        if (prefetcher != null) {
+            // Items are already cached by the reader, just collect the rest
+            List<ResultItem> list = new ArrayList<ResultItem>();
+            ResultItem item;
+
+            while ((item = prefetched(true)) != null) {
+                list.add(item);
+            }
+
+            ResultSequence rs = new CachedResultSequence(request, list, getTotalBytesRead());
+            close();
+            return rs;
+        }
+
         if ((currentItem != null) && (!currentItem.isFetchable())) {
             next();
         }
 
         try {
-            ResultSequence rs = new CachedResultSequence(request, mbuf, options);
+            ResultSequence rs = new CachedResultSequence(request, mbuf, options, sequencePart);
+            sequencePart = null;
             close();
             return rs;
         } catch(RequestException e) {
@@ -217,6 +343,9 @@ public class StreamingResultSequence extends AbstractResultSequence {
     public ResultItem[] toResultItemArray() {
         List<ResultItem> list = new ArrayList<ResultItem>();
 
+        // every item in the array must be distinct
+        recycler = null;
+
         while (hasNext()) {
             ResultItem item = next();
 
@@ -234,6 +363,72 @@ public class StreamingResultSequence extends AbstractResultSequence {
         return array;
     }
 
+    public long[] asLongArray() {
+        ResultProjector.Longs projector = new ResultProjector.Longs();
+
+        project(projector);
+
+        return projector.toArray();
+    }
+
+    public double[] asDoubleArray() {
+        ResultProjector.Doubles projector = new ResultProjector.Doubles();
+
+        project(projector);
+
+        return projector.toArray();
+    }
+
+    public StringColumn asStringColumn() {
+        ResultProjector.Strings projector = new ResultProjector.Strings();
+
+        project(projector);
+
+        return projector.toColumn();
+    }
+
+    // Consume the rest of the stream into the projector, then close
+    private void project(ResultProjector projector) {
+        assertNotClosed();
+
+        invalidateCurrentIterator();
+
+        try {
+            if (prefetcher != null) {
+                ResultItem item;
+
+                while ((item = prefetched(true)) != null) {
+                    projector.add(item);
+                }
+            } else {
+                projectRemaining(mbuf, projector);
+                recordResultShape();
+            }
+        } catch(RequestException e) {
+            String msg = "RequestException projecting streaming ResultSequence: " + e.getMessage();
+            logger.log(Level.SEVERE, msg, e);
+            throw new StreamingResultException(msg, this, e);
+        } catch(IOException e) {
+            String msg = "IOException projecting streaming ResultSequence: " + e.getMessage();
+            logger.log(Level.SEVERE, msg, e);
+            throw new StreamingResultException(msg, this, e);
+        } finally {
+            currentItem = null;
+            close();
+        }
+    }
+
+    @Override
+    public long writeTo(WritableByteChannel channel, String separator) throws IOException {
+        assertNotClosed();
+
+        try {
+            return super.writeTo(channel, separator);
+        } finally {
+            close();
+        }
+    }
+
     public ResultSequence getChannel(ResultChannelName channel) {
         assertNotClosed();
 
@@ -257,6 +452,21 @@ public class StreamingResultSequence extends AbstractResultSequence {
         return (currentIterator);
     }
 
+    public Stream<ResultItem> stream() {
+        assertNotClosed();
+
+        invalidateCurrentIterator();
+
+        // a stream may hold on to items, or hand them to other threads, so they must be distinct
+        recycler = null;
+
+        return StreamSupport.stream(new ItemSpliterator(this), false).onClose(new Runnable() {
+            public void run() {
+                close();
+            }
+        });
+    }
+
     public XdmItem itemAt(int index) {
         return (resultItemAt(index).getItem());
     }
@@ -312,12 +522,71 @@ public class StreamingResultSequence extends AbstractResultSequence {
 
     // -----------------------------------------------------------
 
+    // Feed the adaptive buffer sizer once the whole result has been seen
+    private void recordResultShape() {
+        if (shapeRecorded || !options.getResultBufferSizeAdaptive()) {
+            return;
+        }
+
+        shapeRecorded = true;
+
+        ResultBufferSizer sizer = ResultBufferSizer.forRequest(request);
+
+        if (sizer != null) {
+            sizer.record(options.getRequestName(), mbuf);
+        }
+    }
+
     private void invalidateCurrentIterator() {
         if (currentIterator != null) {
             currentIterator.invalidate();
         }
     }
 
+    // Pulls items off the stream one at a time. Items split off in batches for other
+    // threads are cached, since the stream will have moved past them by the time they're used.
+    private static class ItemSpliterator extends Spliterators.AbstractSpliterator<ResultItem> {
+        private final StreamingResultSequence parent;
+        private boolean splitting = false;
+
+        ItemSpliterator(StreamingResultSequence parent) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+
+            this.parent = parent;
+        }
+
+        public boolean tryAdvance(Consumer<? super ResultItem> action) {
+            if (!parent.hasNext()) {
+                return false;
+            }
+
+            ResultItem item = parent.next();
+
+            if (item == null) {
+                return false;
+            }
+
+            if (splitting) {
+                item.cache();
+            }
+
+            action.accept(item);
+
+            return true;
+        }
+
+        @Override
+        public Spliterator<ResultItem> trySplit() {
+            splitting = true;
+
+            try {
+                return super.trySplit();
+            } finally {
+                splitting = false;
+            }
+        }
+    }
+
     private static class IteratorAdapter implements Iterator<ResultItem> {
         private StreamingResultSequence parent;
         private volatile boolean invalidated = false;
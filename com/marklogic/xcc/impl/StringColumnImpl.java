@@ -0,0 +1,78 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.impl;
+
+import com.marklogic.xcc.StringColumn;
+
+public class StringColumnImpl implements StringColumn {
+    private final char[] chars;
+    // value i is chars[offsets[i]] .. chars[offsets[i + 1]]
+    private final int[] offsets;
+    private final int size;
+
+    StringColumnImpl(char[] chars, int[] offsets, int size) {
+        this.chars = chars;
+        this.offsets = offsets;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String get(int index) {
+        checkIndex(index);
+
+        return new String(chars, offsets[index], offsets[index + 1] - offsets[index]);
+    }
+
+    public int length(int index) {
+        checkIndex(index);
+
+        return offsets[index + 1] - offsets[index];
+    }
+
+    public int getChars(int index, char[] dest, int destOffset) {
+        int len = length(index);
+
+        System.arraycopy(chars, offsets[index], dest, destOffset, len);
+
+        return len;
+    }
+
+    public String[] toArray() {
+        String[] array = new String[size];
+
+        for (int i = 0; i < size; i++) {
+            array[i] = get(i);
+        }
+
+        return array;
+    }
+
+    @Override
+    public String toString() {
+        return "StringColumn: size=" + size;
+    }
+
+    // -----------------------------------------------------------
+
+    private void checkIndex(int index) {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException("Index out of range: size=" + size + ", requested=" + index);
+        }
+    }
+}
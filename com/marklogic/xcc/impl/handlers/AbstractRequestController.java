@@ -33,6 +33,7 @@ import com.marklogic.xcc.exceptions.RetryableXQueryException;
 import com.marklogic.xcc.exceptions.ServerConnectionException;
 import com.marklogic.xcc.exceptions.UnexpectedResponseException;
 import com.marklogic.xcc.impl.ContentSourceImpl;
+import com.marklogic.xcc.impl.RequestImpl;
 import com.marklogic.xcc.impl.SessionImpl;
 import com.marklogic.xcc.spi.ConnectionErrorAction;
 import com.marklogic.xcc.spi.ConnectionProvider;
@@ -62,7 +63,7 @@ public abstract class AbstractRequestController implements HttpRequestController
     public ResultSequence runRequest(ConnectionProvider provider, Request request, Logger logger)
             throws RequestException {
         SessionImpl session = (SessionImpl)request.getSession();
-        RequestOptions options = request.getEffectiveOptions();
+        RequestOptions options = RequestImpl.effectiveOptions(request);
         long delayMillis = options.getAutoRetryDelayMillis();
         int retries = options.getMaxAutoRetry();
         int tries = Math.max(retries + 1, 1);
@@ -380,7 +380,7 @@ public class ContentInsertController extends AbstractRequestController {
             boolean collectErrors) {
         ContentCreateOptions options = (content.getCreateOptions() == null) ? new ContentCreateOptions() : content
                 .getCreateOptions();
-        RequestOptions requestOptions = (request == null) ? new RequestOptions() : request.getEffectiveOptions();
+        RequestOptions requestOptions = (request == null) ? new RequestOptions() : RequestImpl.effectiveOptions(request);
         StringBuffer sb = new StringBuffer(256);
 
         sb.append("/insert?uri=");
@@ -398,6 +398,8 @@ public class ContentInsertController extends AbstractRequestController {
             if (request == null) {
                 sb.append("&locale=").append(options.getLocale().toString());
             } else {
+                // the effective options are shared, change a copy
+                requestOptions = new RequestOptions(requestOptions);
                 requestOptions.setLocale(options.getLocale());
             }
         }
@@ -27,6 +27,9 @@ import com.marklogic.xcc.Request;
 import com.marklogic.xcc.RequestOptions;
 import com.marklogic.xcc.ResultSequence;
 import com.marklogic.xcc.exceptions.RequestException;
+import com.marklogic.xcc.impl.ContentSourceImpl;
+import com.marklogic.xcc.impl.EncodedQuery;
+import com.marklogic.xcc.impl.ResultBufferSizer;
 import com.marklogic.xcc.impl.SessionImpl;
 import com.marklogic.xcc.spi.ServerConnection;
 
@@ -45,18 +48,31 @@ public class EvalRequestController extends AbstractRequestController {
 
     // --------------------------------------------------------
 
-    protected final String body;
+    protected final EncodedQuery body;
     private final String path;
+    private boolean sessionUpdated = true;
 
     // --------------------------------------------------------
 
     public EvalRequestController(String path, String body) {
+        this(path, EncodedQuery.of(body));
+    }
+
+    public EvalRequestController(String path, EncodedQuery body) {
         super(handlers);
 
         this.path = path;
         this.body = body;
     }
 
+    /**
+     * Whether the server version and cookies of the response are recorded on the session. They
+     * should not be for a request run on a thread other than the one using the session.
+     */
+    public void setSessionUpdated(boolean sessionUpdated) {
+        this.sessionUpdated = sessionUpdated;
+    }
+
     // --------------------------------------------------------
     // Invoked by superclass template method
 
@@ -67,7 +83,7 @@ public class EvalRequestController extends AbstractRequestController {
 
         HttpChannel http = buildChannel(connection, path, session, options, logger);
 
-        issueRequest(http, body, logger);
+        issueRequest(http, logger);
 
         int code = http.getResponseCode();
 
@@ -75,9 +91,11 @@ public class EvalRequestController extends AbstractRequestController {
             logger.fine("response: " + code + " (" + http.getResponseMessage() + ")");
         }
 
-        session.setServerVersion(http.getServerVersion());
-        session.readCookieValues(http);
-        
+        if (sessionUpdated) {
+            session.setServerVersion(http.getServerVersion());
+            session.readCookieValues(http);
+        }
+
         setConnectionTimeout(connection, http);
 
         return (ResultSequence)findHandler(code).handleResponse(http, code, request, connection, logger);
@@ -100,8 +118,8 @@ public class EvalRequestController extends AbstractRequestController {
             RequestOptions options, Logger logger) {
         String method = "POST";
 
-        HttpChannel http = new HttpChannel(connection.channel(), method, path, body.length(), options
-                .getTimeoutMillis(), logger);
+        HttpChannel http = new HttpChannel(connection.channel(), method, path, channelBufferSize(session, options),
+                options.getTimeoutMillis(), logger);
 
         http.setRequestContentType("application/x-www-form-urlencoded");
         http.setCloseOutputIfNoContentLength(true);
@@ -111,14 +129,37 @@ public class EvalRequestController extends AbstractRequestController {
         return (http);
     }
 
+    // The channel buffer is used for both the request body and the response,
+    // size it for the larger of the two if the response shape is known.
+    private int channelBufferSize(SessionImpl session, RequestOptions options) {
+        int size = body.bufferedLength();
+
+        if (options.getResultBufferSizeAdaptive() && (session.getContentSource() instanceof ContentSourceImpl)) {
+            ResultBufferSizer sizer = ((ContentSourceImpl)session.getContentSource()).getResultBufferSizer();
+
+            size = Math.max(size, sizer.suggestReceiveBufferSize(options.getRequestName()));
+        }
+
+        return size;
+    }
+
     // -----------------------------------------------------
 
-    private void issueRequest(HttpChannel http, String encodedQuery, Logger logger) throws IOException {
+    private void issueRequest(HttpChannel http, Logger logger) throws IOException {
         if (logger.isLoggable(Level.FINE)) {
-            logger.fine("encoded query: " + encodedQuery);
+            logger.fine("encoded query: " + body);
+        }
+
+        // If the length is known up front a body too big for the channel buffer
+        // needn't close the output side. With a streamed value it isn't known.
+        long length = body.length();
+
+        if (length >= 0) {
+            http.setRequestContentLength(length);
+            http.setRequestHeader("Connection", "keep-alive");
         }
 
         logger.fine("writing query to HttpChannel");
-        http.writeString(encodedQuery);
+        body.writeTo(http);
     }
 }
@@ -27,6 +27,8 @@ import com.marklogic.http.NullPartSplitter;
 import com.marklogic.xcc.Request;
 import com.marklogic.xcc.RequestOptions;
 import com.marklogic.xcc.impl.CachedResultSequence;
+import com.marklogic.xcc.impl.ContentSourceImpl;
+import com.marklogic.xcc.impl.ResultBufferSizer;
 import com.marklogic.xcc.impl.SessionImpl;
 import com.marklogic.xcc.impl.StreamingResultSequence;
 import com.marklogic.xcc.impl.RequestImpl;
@@ -36,20 +38,43 @@ import com.marklogic.xcc.exceptions.RequestException;
 public class GoodQueryResponseHandler implements ResponseHandler {
     public Object handleResponse(HttpChannel http, int responseCode, Request request, Object attachment, Logger logger)
             throws RequestException, IOException {
-        RequestOptions options = request.getEffectiveOptions();
+        RequestOptions options = RequestImpl.effectiveOptions(request);
+        ResultBufferSizer sizer = options.getResultBufferSizeAdaptive() ? ResultBufferSizer.forRequest(request) : null;
         String boundary = http.getResponseContentBoundary();
+        // A streaming result is handed over item by item as it arrives, a cached one
+        // is read in as few, full buffer reads as possible
         MultipartSplitter splitter = (boundary == null) ? (MultipartSplitter)new NullPartSplitter()
-                : new BMBoundaryPartSplitter(http.getResponseStream(), boundary.getBytes(), options
-                        .getResultBufferSize(), logger);
-        MultipartBuffer mbuf = new MultipartBuffer(splitter);
+                : new BMBoundaryPartSplitter(http.getResponseStream(), boundary.getBytes(), resultBufferSize(
+                        options, sizer), logger, !options.getCacheResult());
+        Object cs = request.getSession().getContentSource();
+        MultipartBuffer mbuf = (cs instanceof ContentSourceImpl) ? new MultipartBuffer(splitter,
+                ((ContentSourceImpl)cs).getStringCache()) : new MultipartBuffer(splitter);
 
         if (options.getCacheResult()) {
             logger.fine("ResultSequence is to be cached, reading");
-            return new CachedResultSequence(request, mbuf, options);
+            CachedResultSequence rs = new CachedResultSequence(request, mbuf, options);
+
+            if (sizer != null) {
+                sizer.record(options.getRequestName(), mbuf);
+            }
+
+            return rs;
         }
 
         logger.fine("ResultSequence is streaming");
         return new StreamingResultSequence(request, (ServerConnection)attachment, mbuf,
                 options, logger);
     }
+
+    private int resultBufferSize(RequestOptions options, ResultBufferSizer sizer) {
+        if (sizer != null) {
+            int suggested = sizer.suggestSplitterBufferSize(options.getRequestName());
+
+            if (suggested > 0) {
+                return suggested;
+            }
+        }
+
+        return options.getResultBufferSize();
+    }
 }
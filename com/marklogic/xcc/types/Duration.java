@@ -16,8 +16,8 @@
 package com.marklogic.xcc.types;
 
 import java.math.BigDecimal;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.time.DateTimeException;
+import java.time.Period;
 
 /**
  * The Duration class is a mutable class which implements the XdmDuration interface.
@@ -30,7 +30,11 @@ public class Duration implements XdmDuration {
     private int days = 0;
     private int hours = 0;
     private int minutes = 0;
-    private BigDecimal seconds = ZERO;
+    // Seconds are held as an unscaled value and scale, as a BigDecimal only when set as one or
+    // when they have too many digits. The BigDecimal is made when first asked for.
+    private long secondsUnscaled = 0;
+    private int secondsScale = 1;
+    private BigDecimal seconds = null;
 
     // ---------------------------------------------------------------
 
@@ -83,6 +87,57 @@ public class Duration implements XdmDuration {
         this.seconds = (seconds == null) ? ZERO : seconds;
     }
 
+    /**
+     * Construct a duration object with the same value as the given one.
+     *
+     * @param duration
+     *            A {@link java.time.Duration}, which is expressed in days, hours, minutes and
+     *            seconds. Its seconds keep only as many fractional digits as they need.
+     */
+    public Duration(java.time.Duration duration) {
+        if (duration.isNegative()) {
+            negative = true;
+            duration = duration.negated();
+        }
+
+        long secs = duration.getSeconds();
+
+        days = Math.toIntExact(secs / 86400);
+        hours = (int)((secs % 86400) / 3600);
+        minutes = (int)((secs % 3600) / 60);
+        seconds = BigDecimal.valueOf(secs % 60).add(BigDecimal.valueOf(duration.getNano(), 9)).stripTrailingZeros();
+
+        if (seconds.signum() == 0) {
+            seconds = ZERO;
+        } else if (seconds.scale() < 0) {
+            seconds = seconds.setScale(0);
+        }
+    }
+
+    /**
+     * Construct a duration object with the same value as the given period.
+     *
+     * @param period
+     *            A {@link Period}. Its years, months and days must all have the same sign.
+     * @throws IllegalArgumentException
+     *             If the period mixes positive and negative parts, which a duration cannot.
+     */
+    public Duration(Period period) {
+        negative = period.isNegative();
+
+        if (negative) {
+            period = period.negated();
+        }
+
+        if ((period.getYears() < 0) || (period.getMonths() < 0) || (period.getDays() < 0)) {
+            throw new IllegalArgumentException("Period has parts of differing sign: " + period);
+        }
+
+        years = period.getYears();
+        months = period.getMonths();
+        days = period.getDays();
+    }
+
     // -----------------------------------------------
     // XdmDuration interface
 
@@ -115,11 +170,60 @@ public class Duration implements XdmDuration {
     }
 
     public long getWholeSeconds() {
+        if (seconds == null) {
+            return (int)(secondsUnscaled / POWERS_OF_TEN[secondsScale]);
+        }
+
         return seconds.intValue();
     }
 
     public BigDecimal getSeconds() {
-        return seconds;
+        BigDecimal result = seconds;
+
+        if (result == null) {
+            result = BigDecimal.valueOf(secondsUnscaled, secondsScale);
+            seconds = result;
+        }
+
+        return result;
+    }
+
+    public java.time.Duration asJavaDuration() {
+        if ((years != 0) || (months != 0)) {
+            throw new DateTimeException("Duration with years or months has no fixed length: " + this);
+        }
+
+        long whole;
+        long nanos;
+
+        if (seconds == null) {
+            long scale = POWERS_OF_TEN[secondsScale];
+
+            whole = secondsUnscaled / scale;
+            nanos = secondsUnscaled % scale;
+            nanos = (secondsScale <= 9) ? nanos * POWERS_OF_TEN[9 - secondsScale] : nanos
+                    / POWERS_OF_TEN[secondsScale - 9];
+        } else {
+            BigDecimal[] parts = seconds.divideAndRemainder(BigDecimal.ONE);
+
+            whole = parts[0].longValueExact();
+            nanos = parts[1].movePointRight(9).longValue();
+        }
+
+        long total = Math.addExact((days * 86400L) + (hours * 3600L) + (minutes * 60L), whole);
+        java.time.Duration result = java.time.Duration.ofSeconds(total, nanos);
+
+        return negative ? result.negated() : result;
+    }
+
+    public Period asPeriod() {
+        if ((hours != 0) || (minutes != 0) || (getSeconds().signum() != 0)) {
+            throw new DateTimeException("Duration with a time part is not a Period: " + this);
+        }
+
+        Period result = Period.of(years, months, days);
+
+        return negative ? result.negated() : result;
     }
 
     // ------------------------------------------------
@@ -191,56 +295,178 @@ public class Duration implements XdmDuration {
      *            the integer seconds value.
      */
     public void setWholeSeconds(long seconds) {
-        this.seconds = new BigDecimal("" + seconds);
+        this.secondsUnscaled = seconds;
+        this.secondsScale = 0;
+        this.seconds = null;
     }
 
     // -------------------------------------------------------------------
 
     // -P2Y4M5DT3H5M42.057S
 
-    private static final String DURATION_PATTERN = "(-)?P" + "((\\d+)Y)?" + "((\\d+)M)?" + "((\\d+)D)?" + "(T"
-            + "((\\d+)H)?" + "((\\d+)M)?" + "((\\d*\\.?\\d*)S)?" + ")?";
+    // Up to 18 digits always fits in a long
+    private static final int MAX_LONG_DIGITS = 18;
 
-    private static final int SIGN = 1;
-    private static final int YEARS = 3;
-    private static final int MONTHS = 5;
-    private static final int DAYS = 7;
-    private static final int HOURS = 10;
-    private static final int MINUTES = 12;
-    private static final int SECONDS = 14;
+    private static final long[] POWERS_OF_TEN = new long[MAX_LONG_DIGITS + 1];
 
-    private static final Pattern durPattern = Pattern.compile(DURATION_PATTERN);
+    static {
+        POWERS_OF_TEN[0] = 1;
 
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    // A single pass over the string. Each of Y, M, D and then H, M, S is optional, but they must
+    // come in that order.
     private void parseDuration(String dur) {
-        Matcher matcher = durPattern.matcher(dur);
+        int len = dur.length();
+        int i = 0;
 
-        if (!matcher.matches()) {
-            throw new IllegalArgumentException("Not a valid duration: " + dur);
+        if ((i < len) && (dur.charAt(i) == '-')) {
+            negative = true;
+            i++;
         }
 
-        negative = "-".equals(matcher.group(SIGN));
-        years = intValue(matcher.group(YEARS));
-        months = intValue(matcher.group(MONTHS));
-        days = intValue(matcher.group(DAYS));
-        hours = intValue(matcher.group(HOURS));
-        minutes = intValue(matcher.group(MINUTES));
-        seconds = bigDecimalValue(matcher.group(SECONDS));
+        if ((i == len) || (dur.charAt(i++) != 'P')) {
+            throw invalid(dur);
+        }
+
+        int field = 0;
+
+        while ((i < len) && (dur.charAt(i) != 'T')) {
+            int start = i;
+
+            i = skipDigits(dur, i);
+
+            if ((i == start) || (i == len)) {
+                throw invalid(dur);
+            }
+
+            char designator = dur.charAt(i);
+
+            if ((designator == 'Y') && (field < 1)) {
+                years = intValue(dur, start, i);
+                field = 1;
+            } else if ((designator == 'M') && (field < 2)) {
+                months = intValue(dur, start, i);
+                field = 2;
+            } else if ((designator == 'D') && (field < 3)) {
+                days = intValue(dur, start, i);
+                field = 3;
+            } else {
+                throw invalid(dur);
+            }
+
+            i++;
+        }
+
+        if (i == len) {
+            return;
+        }
+
+        // past the 'T'
+        i++;
+        field = 0;
+
+        while (i < len) {
+            int start = i;
+
+            i = skipDigits(dur, i);
+
+            char designator = (i < len) ? dur.charAt(i) : 0;
+
+            if ((designator == 'H') && (i > start) && (field < 1)) {
+                hours = intValue(dur, start, i);
+                field = 1;
+                i++;
+            } else if ((designator == 'M') && (i > start) && (field < 2)) {
+                minutes = intValue(dur, start, i);
+                field = 2;
+                i++;
+            } else if (field < 3) {
+                i = parseSeconds(dur, start, i);
+                field = 3;
+            } else {
+                throw invalid(dur);
+            }
+        }
+    }
+
+    // Seconds are the digits already skipped, an optional fraction and 'S', which must end the
+    // string. Return the index past the 'S'.
+    private int parseSeconds(String dur, int start, int point) {
+        int len = dur.length();
+        int i = point;
+        int scale = 0;
+
+        if ((i < len) && (dur.charAt(i) == '.')) {
+            i = skipDigits(dur, i + 1);
+            scale = i - point - 1;
+        }
+
+        if ((i != len - 1) || (dur.charAt(i) != 'S')) {
+            throw invalid(dur);
+        }
+
+        int digits = (point - start) + scale;
+
+        if (i == start) {
+            // "S" alone
+            return len;
+        }
+
+        if (digits == 0) {
+            // "." alone
+            throw invalid(dur);
+        }
+
+        if (digits > MAX_LONG_DIGITS) {
+            seconds = new BigDecimal(dur.substring(start, i));
+
+            return len;
+        }
+
+        long value = 0;
+
+        for (int j = start; j < i; j++) {
+            char c = dur.charAt(j);
+
+            if (c != '.') {
+                value = (value * 10) + (c - '0');
+            }
+        }
+
+        secondsUnscaled = value;
+        secondsScale = scale;
+
+        return len;
     }
 
-    private int intValue(String strValue) {
-        if ((strValue == null) || (strValue.length() == 0)) {
-            return (0);
+    private static int skipDigits(String str, int i) {
+        while ((i < str.length()) && (str.charAt(i) >= '0') && (str.charAt(i) <= '9')) {
+            i++;
         }
 
-        return Integer.parseInt(strValue);
+        return i;
     }
 
-    private BigDecimal bigDecimalValue(String strValue) {
-        if ((strValue == null) || (strValue.length() == 0)) {
-            return (ZERO);
+    private static int intValue(String str, int start, int end) {
+        long value = 0;
+
+        for (int i = start; i < end; i++) {
+            value = (value * 10) + (str.charAt(i) - '0');
+
+            if (value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Duration field out of range: " + str);
+            }
         }
 
-        return new BigDecimal(strValue);
+        return (int)value;
+    }
+
+    private static IllegalArgumentException invalid(String dur) {
+        return new IllegalArgumentException("Not a valid duration: " + dur);
     }
 
     // -----------------------------------------------------------------
@@ -269,12 +495,20 @@ public class Duration implements XdmDuration {
         return ((other.isNegative() == this.negative) && (other.getYears() == this.years)
                 && (other.getMonths() == this.months) && (other.getDays() == this.days)
                 && (other.getHours() == this.hours) && (other.getMinutes() == this.minutes) && (other.getSeconds()
-                .equals(this.seconds)));
+                .equals(getSeconds())));
     }
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        int hash = negative ? 1 : 0;
+
+        hash = (31 * hash) + years;
+        hash = (31 * hash) + months;
+        hash = (31 * hash) + days;
+        hash = (31 * hash) + hours;
+        hash = (31 * hash) + minutes;
+
+        return (31 * hash) + getSeconds().hashCode();
     }
 
     /**
@@ -291,6 +525,7 @@ public class Duration implements XdmDuration {
      */
     @Override
     public String toString() {
+        BigDecimal seconds = getSeconds();
         StringBuffer sb = new StringBuffer();
 
         if (negative) {
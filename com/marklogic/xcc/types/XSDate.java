@@ -23,4 +23,13 @@ public interface XSDate extends XdmAtomic {
      * @return The value of this item as a Java Date object.
      */
     java.util.Date asDate();
+
+    /**
+     * The default implementation parses {@link #asString()} as an ISO date.
+     * 
+     * @return The value of this item as a java.time LocalDate. Any timezone is dropped.
+     */
+    default java.time.LocalDate asLocalDate() {
+        return java.time.LocalDate.parse(asString(), java.time.format.DateTimeFormatter.ISO_DATE);
+    }
 }
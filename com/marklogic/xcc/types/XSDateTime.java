@@ -23,4 +23,33 @@ public interface XSDateTime extends XdmAtomic {
      * @return The value of this item as a Java Date object.
      */
     java.util.Date asDate();
+
+    /**
+     * Unlike {@link #asDate()}, this honors the timezone given in the value. A value without a
+     * timezone is taken to be in the item's timezone, normally that of the request (see
+     * {@link com.marklogic.xcc.RequestOptions#setTimeZone(java.util.TimeZone)}).
+     * <p>
+     * The default implementation parses {@link #asString()} as an ISO date-time, taking a value
+     * without a timezone to be in the JVM's default timezone.
+     * </p>
+     * 
+     * @return The value of this item as a java.time OffsetDateTime.
+     */
+    default java.time.OffsetDateTime asOffsetDateTime() {
+        java.time.temporal.TemporalAccessor parsed = java.time.format.DateTimeFormatter.ISO_DATE_TIME
+                .parse(asString());
+
+        if (parsed.isSupported(java.time.temporal.ChronoField.OFFSET_SECONDS)) {
+            return java.time.OffsetDateTime.from(parsed);
+        }
+
+        return java.time.LocalDateTime.from(parsed).atZone(java.time.ZoneId.systemDefault()).toOffsetDateTime();
+    }
+
+    /**
+     * @return The instant this item denotes, as for {@link #asOffsetDateTime()}.
+     */
+    default java.time.Instant asInstant() {
+        return asOffsetDateTime().toInstant();
+    }
 }
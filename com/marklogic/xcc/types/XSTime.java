@@ -23,4 +23,13 @@ public interface XSTime extends XdmAtomic {
      * @return The value of this item as a Java Date object.
      */
     java.util.Date asDate();
+
+    /**
+     * The default implementation parses {@link #asString()} as an ISO time.
+     * 
+     * @return The value of this item as a java.time LocalTime. Any timezone is dropped.
+     */
+    default java.time.LocalTime asLocalTime() {
+        return java.time.LocalTime.parse(asString(), java.time.format.DateTimeFormatter.ISO_TIME);
+    }
 }
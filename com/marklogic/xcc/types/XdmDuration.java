@@ -16,6 +16,8 @@
 package com.marklogic.xcc.types;
 
 import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Period;
 
 /**
  * A Java representation of xs:duration.
@@ -38,4 +40,44 @@ public interface XdmDuration {
     long getWholeSeconds();
 
     BigDecimal getSeconds();
+
+    /**
+     * This duration as a {@link java.time.Duration}, taking a day to be exactly 24 hours.
+     * Fractions of a second beyond nanoseconds are truncated. The default implementation builds
+     * it from the field getters.
+     *
+     * @return An equivalent {@link java.time.Duration}.
+     * @throws java.time.DateTimeException
+     *             If this duration has years or months, which have no fixed length.
+     */
+    default java.time.Duration asJavaDuration() {
+        if ((getYears() != 0) || (getMonths() != 0)) {
+            throw new DateTimeException("Duration with years or months has no fixed length: " + this);
+        }
+
+        BigDecimal[] parts = getSeconds().divideAndRemainder(BigDecimal.ONE);
+        long total = Math.addExact((getDays() * 86400L) + (getHours() * 3600L) + (getMinutes() * 60L),
+                parts[0].longValueExact());
+        java.time.Duration result = java.time.Duration.ofSeconds(total, parts[1].movePointRight(9).longValue());
+
+        return isNegative() ? result.negated() : result;
+    }
+
+    /**
+     * This duration as a {@link Period} of years, months and days. The default implementation
+     * builds it from the field getters.
+     *
+     * @return An equivalent {@link Period}.
+     * @throws java.time.DateTimeException
+     *             If this duration has hours, minutes or seconds.
+     */
+    default Period asPeriod() {
+        if ((getHours() != 0) || (getMinutes() != 0) || (getSeconds().signum() != 0)) {
+            throw new DateTimeException("Duration with a time part is not a Period: " + this);
+        }
+
+        Period result = Period.of(getYears(), getMonths(), getDays());
+
+        return isNegative() ? result.negated() : result;
+    }
 }
@@ -20,6 +20,9 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+
+import com.marklogic.io.IOHelper;
 
 /**
  * Base class for XQuery item values (values that may be a member of a sequence).
@@ -75,6 +78,30 @@ public interface XdmItem extends XdmValue {
      */
     void writeTo(OutputStream outputStream) throws IOException;
 
+    /**
+     * Write the value of this item, UTF-8 encoded, to the provided channel. For a non-cached item
+     * of a streaming {@link com.marklogic.xcc.ResultSequence}, the bytes are written straight from
+     * the result receive buffer, with no character decoding and re-encoding. The item is consumed,
+     * as with {@link #asInputStream()}.
+     * <p>
+     * The default implementation copies {@link #asInputStream()} to the channel.
+     * </p>
+     * 
+     * @param channel
+     *            A client-provided, open channel in blocking mode. It will not be closed by this
+     *            method.
+     * @return The number of bytes written.
+     */
+    default long transferTo(WritableByteChannel channel) throws IOException {
+        InputStream inputStream = asInputStream();
+
+        try {
+            return IOHelper.transferTo(inputStream, channel);
+        } finally {
+            inputStream.close();
+        }
+    }
+
     /**
      * <p>
      * Indicates whether this item's value is buffered in memory. If so it is safe to call any of
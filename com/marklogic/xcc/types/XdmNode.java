@@ -19,8 +19,15 @@ import java.io.IOException;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 /**
  * An XDM value which is a node().
@@ -59,4 +66,60 @@ public interface XdmNode extends XdmItem {
      * @see #asW3cNode(javax.xml.parsers.DocumentBuilder)
      */
     org.w3c.dom.Node asW3cNode() throws ParserConfigurationException, IOException, SAXException;
+
+    /**
+     * <p>
+     * Returns a namespace aware StAX reader over this node. If the item is not cached, the reader
+     * parses straight off the result stream as it is advanced, so that a large node need never be
+     * buffered in full. As with {@link #asInputStream()}, the stream can then only be read once.
+     * </p>
+     * <p>
+     * Only document() and element() items can be read this way. The default implementation
+     * creates a new {@link XMLInputFactory} over {@link #asReader()} on each call.
+     * </p>
+     *
+     * @return An {@link XMLStreamReader} positioned at the start of the document.
+     * @throws XMLStreamException
+     *             If the reader cannot be created.
+     * @throws UnsupportedOperationException
+     *             If this is not a document() or element() item.
+     * @throws IllegalStateException
+     *             If called after the InputStream has already been consumed.
+     */
+    default XMLStreamReader asXMLStreamReader() throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+
+        return factory.createXMLStreamReader(asReader());
+    }
+
+    /**
+     * Parse this node, passing the SAX events to the given handler. Like
+     * {@link #asXMLStreamReader()}, an item that is not cached is parsed straight off the result
+     * stream, and only document() and element() items can be parsed. The default implementation
+     * creates a new SAX parser on each call.
+     *
+     * @param handler
+     *            The handler to receive the events of this node.
+     * @throws UnsupportedOperationException
+     *             If this is not a document() or element() item.
+     * @throws IllegalStateException
+     *             If called after the InputStream has already been consumed.
+     */
+    default void asSAX(ContentHandler handler) throws IOException, SAXException {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        XMLReader xmlReader;
+
+        factory.setNamespaceAware(true);
+
+        try {
+            xmlReader = factory.newSAXParser().getXMLReader();
+        } catch (ParserConfigurationException e) {
+            throw new SAXException("Cannot create SAX parser: " + e.getMessage(), e);
+        }
+
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse(new InputSource(asReader()));
+    }
 }
@@ -15,14 +15,20 @@
  */
 package com.marklogic.xcc.types.impl;
 
-import java.math.BigDecimal;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.Locale;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.marklogic.xcc.types.ItemType;
 
@@ -49,15 +55,87 @@ abstract public class AbstractDateItem extends AbstractStringItem {
     // -----------------------------------------------------------
 
     protected Date dateFromDateString(String str) {
-        return (dateFromString(str, DATE_FMT_STRING, timezone, locale));
+        return (dateFromString(str, DateTimeFields.DATE, DATE_FMT_STRING));
     }
 
     protected Date dateFromDateTimeString(String str) {
-        return (dateFromString(str, DATETIME_FMT_STRING, timezone, locale));
+        return (dateFromString(str, DateTimeFields.DATE_TIME, DATETIME_FMT_STRING));
     }
 
     protected Date dateFromTimeString(String str) {
-        return (dateFromString(str, TIME_FMT_STRING, timezone, locale));
+        return (dateFromString(str, DateTimeFields.TIME, TIME_FMT_STRING));
+    }
+
+    /**
+     * Check that the string is a valid value of the given {@link DateTimeFields} kind, without
+     * converting it.
+     */
+    protected void validateDateString(String str, int kind, String fmt) {
+        DateTimeFields f = DateTimeFields.parse(str, kind);
+
+        if ((f != null) && f.fourDigitYear) {
+            return;
+        }
+
+        if ((kind == DateTimeFields.DATE) || (kind == DateTimeFields.DATE_TIME) || (kind == DateTimeFields.TIME)) {
+            dateFromString(str, fmt, timezone, locale);
+        } else {
+            gCalFromString(str, fmt, timezone, locale);
+        }
+    }
+
+    // Canonical values are converted from their fields with a reused calendar, in
+    // exactly the way SimpleDateFormat would: the fields are taken to be local to
+    // the item's timezone and the fraction is rounded to milliseconds.
+    private Date dateFromString(String str, int kind, String fmt) {
+        DateTimeFields f = DateTimeFields.parse(str, kind);
+
+        if ((f == null) || !f.fourDigitYear || !isGregorian(locale)) {
+            return dateFromString(str, fmt, timezone, locale);
+        }
+
+        return new Date(millisFromFields(f, timezone, f.millis));
+    }
+
+    // -----------------------------------------------------------
+    // java.time conversions, these honor the timezone given in the value
+
+    protected OffsetDateTime offsetDateTimeFromString(String str) {
+        DateTimeFields f = javaTimeFields(str, DateTimeFields.DATE_TIME);
+
+        try {
+            if (f.zoned) {
+                return OffsetDateTime.of(f.toLocalDateTime(), ZoneOffset.ofTotalSeconds(f.offsetSeconds));
+            }
+
+            return f.toLocalDateTime().atZone(timezone.toZoneId()).toOffsetDateTime();
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Not a valid date/time string: " + str, e);
+        }
+    }
+
+    protected LocalDate localDateFromString(String str) {
+        DateTimeFields f = javaTimeFields(str, DateTimeFields.DATE);
+
+        try {
+            return f.toLocalDate();
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Not a valid date/time string: " + str, e);
+        }
+    }
+
+    protected LocalTime localTimeFromString(String str) {
+        return javaTimeFields(str, DateTimeFields.TIME).toLocalTime();
+    }
+
+    private static DateTimeFields javaTimeFields(String str, int kind) {
+        DateTimeFields f = DateTimeFields.parse(str, kind);
+
+        if (f == null) {
+            throw new IllegalArgumentException("Not a valid date/time string: " + str);
+        }
+
+        return f;
     }
 
     // TODO: fully test Timezone and locale variations
@@ -105,37 +183,113 @@ abstract public class AbstractDateItem extends AbstractStringItem {
         return date;
     }
 
-    private static final BigDecimal oneThousand = new BigDecimal("1000");
-
     // package local for unit testing
     static int millisFromFractional(String fraction) {
-        BigDecimal d = new BigDecimal("0." + fraction);
-        d = d.setScale(3, BigDecimal.ROUND_HALF_UP);
-        d = d.multiply(oneThousand);
+        int millis = 0;
+
+        // round half up to three places: only the fourth digit matters
+        for (int i = 0; i < 3; i++) {
+            millis *= 10;
 
-        return d.intValue();
+            if (i < fraction.length()) {
+                millis += fraction.charAt(i) - '0';
+            }
+        }
+
+        if ((fraction.length() > 3) && (fraction.charAt(3) >= '5')) {
+            millis++;
+        }
+
+        return millis;
+    }
+
+    // -----------------------------------------------------------
+
+    private static final ThreadLocal<GregorianCalendar> calendars = new ThreadLocal<GregorianCalendar>() {
+        @Override
+        protected GregorianCalendar initialValue() {
+            return new GregorianCalendar();
+        }
+    };
+
+    private static final Map<Locale, Boolean> gregorianLocales = new ConcurrentHashMap<Locale, Boolean>();
+    private static final Map<String, TimeZone> suffixZones = new ConcurrentHashMap<String, TimeZone>();
+    private static final int MAX_SUFFIX_ZONES = 256;
+
+    private static long millisFromFields(DateTimeFields f, TimeZone tz, int millis) {
+        GregorianCalendar cal = calendars.get();
+
+        cal.clear();
+        cal.setTimeZone(tz);
+        cal.set(f.year, f.month - 1, f.day, f.hour, f.minute, f.second);
+        cal.set(Calendar.MILLISECOND, millis);
+
+        return cal.getTimeInMillis();
+    }
+
+    // SimpleDateFormat uses the locale's calendar system, which isn't always Gregorian
+    private static boolean isGregorian(Locale locale) {
+        Boolean gregorian = gregorianLocales.get(locale);
+
+        if (gregorian == null) {
+            gregorian = Boolean.valueOf("gregory".equals(Calendar.getInstance(locale).getCalendarType()));
+            gregorianLocales.put(locale, gregorian);
+        }
+
+        return gregorian.booleanValue();
+    }
+
+    // As TimeZone.getTimeZone("GMT" + suffix), looked up once per distinct suffix
+    private static TimeZone suffixZone(String suffix) {
+        TimeZone zone = suffixZones.get(suffix);
+
+        if (zone == null) {
+            zone = TimeZone.getTimeZone("GMT" + suffix);
+
+            if (suffixZones.size() < MAX_SUFFIX_ZONES) {
+                suffixZones.put(suffix, zone);
+            }
+        }
+
+        // TimeZone is mutable, don't hand out the shared instance
+        return (TimeZone)zone.clone();
     }
 
     // -----------------------------------------------------------
 
     protected GregorianCalendar gCalFromGDayString(String str) {
-        return (gCalFromString(str, GDAY_FMT_STRING, timezone, locale));
+        return (gCalFromString(str, DateTimeFields.GDAY, GDAY_FMT_STRING));
     }
 
     protected GregorianCalendar gCalFromGMonthString(String str) {
-        return (gCalFromString(str, GMONTH_FMT_STRING, timezone, locale));
+        return (gCalFromString(str, DateTimeFields.GMONTH, GMONTH_FMT_STRING));
     }
 
     protected GregorianCalendar gCalFromGMonthDayString(String str) {
-        return (gCalFromString(str, GMONTHDAY_FMT_STRING, timezone, locale));
+        return (gCalFromString(str, DateTimeFields.GMONTH_DAY, GMONTHDAY_FMT_STRING));
     }
 
     protected GregorianCalendar gCalFromGYearString(String str) {
-        return (gCalFromString(str, GYEAR_FMT_STRING, timezone, locale));
+        return (gCalFromString(str, DateTimeFields.GYEAR, GYEAR_FMT_STRING));
     }
 
     protected GregorianCalendar gCalFromGYearMonthString(String str) {
-        return (gCalFromString(str, GYEARMONTH_FMT_STRING, timezone, locale));
+        return (gCalFromString(str, DateTimeFields.GYEAR_MONTH, GYEARMONTH_FMT_STRING));
+    }
+
+    private GregorianCalendar gCalFromString(String str, int kind, String fmt) {
+        DateTimeFields f = DateTimeFields.parse(str, kind);
+
+        if ((f == null) || !f.fourDigitYear || !isGregorian(locale)) {
+            return gCalFromString(str, fmt, timezone, locale);
+        }
+
+        TimeZone tz = (f.zone == null) ? timezone : suffixZone(f.zone);
+        GregorianCalendar gcal = new GregorianCalendar(tz, locale);
+
+        gcal.setTimeInMillis(millisFromFields(f, timezone, 0));
+
+        return gcal;
     }
 
     // TODO: Test timezone and locale settings
@@ -20,15 +20,33 @@ import com.marklogic.xcc.types.ItemType;
 import com.marklogic.xcc.types.XdmDuration;
 
 abstract public class AbstractDurationItem extends AbstractStringItem {
-    private final XdmDuration value;
+    private volatile XdmDuration value;
 
     public AbstractDurationItem(ItemType type, String value) {
+        this(type, value, true);
+    }
+
+    /**
+     * @param parseNow
+     *            If false the value is assumed to be valid and is not parsed until
+     *            {@link #asDuration()} is first called.
+     */
+    protected AbstractDurationItem(ItemType type, String value, boolean parseNow) {
         super(type, value);
 
-        this.value = new Duration(value);
+        if (parseNow) {
+            this.value = new Duration(value);
+        }
     }
 
     public XdmDuration asDuration() {
-        return value;
+        XdmDuration result = value;
+
+        if (result == null) {
+            result = new Duration(asString());
+            value = result;
+        }
+
+        return result;
     }
 }
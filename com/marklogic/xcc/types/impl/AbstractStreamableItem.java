@@ -21,6 +21,8 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 import com.marklogic.io.IOHelper;
 import com.marklogic.xcc.types.ItemType;
@@ -107,6 +109,16 @@ public class AbstractStreamableItem extends AbstractItem implements StreamableIt
         return (IOHelper.newUtf8Stream(stringVal));
     }
 
+    @Override
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        if (stringVal != null) {
+            return IOHelper.writeFully(channel, ByteBuffer.wrap(stringVal.getBytes("UTF-8")));
+        }
+
+        // the part bytes are already UTF-8, pass them on as they are
+        return super.transferTo(channel);
+    }
+
     public String asString() {
         if (stringVal != null) {
             return stringVal;
@@ -15,8 +15,15 @@
  */
 package com.marklogic.xcc.types.impl;
 
+import java.io.IOException;
 import java.io.InputStream;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
 import com.marklogic.xcc.types.ItemType;
 import com.marklogic.xcc.types.XdmNode;
 
@@ -28,4 +35,12 @@ abstract public class AbstractStreamableNodeItem extends AbstractStreamableItem
     public AbstractStreamableNodeItem(ItemType type, InputStream stream) {
         super(type, stream);
     }
+
+    public XMLStreamReader asXMLStreamReader() throws XMLStreamException {
+        return XmlParsers.newXMLStreamReader(asReader());
+    }
+
+    public void asSAX(ContentHandler handler) throws IOException, SAXException {
+        XmlParsers.parse(asReader(), handler);
+    }
 }
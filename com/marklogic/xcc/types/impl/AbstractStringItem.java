@@ -16,10 +16,15 @@
 package com.marklogic.xcc.types.impl;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import com.marklogic.io.IOHelper;
 
 import com.marklogic.xcc.types.ItemType;
 
@@ -53,6 +58,11 @@ abstract class AbstractStringItem extends AbstractItem {
         }
     }
 
+    @Override
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        return IOHelper.writeFully(channel, ByteBuffer.wrap(asString().getBytes("UTF-8")));
+    }
+
     // -------------------------------------------------
 
     protected String scrubbedFloatValue(String rawValue) {
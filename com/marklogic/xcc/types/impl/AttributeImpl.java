@@ -21,9 +21,11 @@ import java.io.InputStream;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Attr;
 import org.w3c.dom.Node;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
 import com.marklogic.xcc.types.ValueType;
@@ -64,4 +66,14 @@ public class AttributeImpl extends AbstractStreamableNodeItem implements XdmAttr
     public Attr asW3cAttr() throws ParserConfigurationException, IOException, SAXException {
         return asW3cAttr(DocumentBuilderFactory.newInstance().newDocumentBuilder());
     }
+
+    @Override
+    public XMLStreamReader asXMLStreamReader() {
+        throw new UnsupportedOperationException("attribute() cannot be read as XML events");
+    }
+
+    @Override
+    public void asSAX(ContentHandler handler) {
+        throw new UnsupportedOperationException("attribute() cannot be read as XML events");
+    }
 }
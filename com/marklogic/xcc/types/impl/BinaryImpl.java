@@ -21,11 +21,15 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Node;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
 import com.marklogic.io.IOHelper;
@@ -99,6 +103,15 @@ public class BinaryImpl extends AbstractItem implements XdmBinary, StreamableIte
         }
     }
 
+    @Override
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        if (bytes != null) {
+            return IOHelper.writeFully(channel, ByteBuffer.wrap(bytes));
+        }
+
+        return super.transferTo(channel);
+    }
+
     public byte[] asBinaryData() {
         if (bytes != null) {
             return bytes.clone();
@@ -126,4 +139,14 @@ public class BinaryImpl extends AbstractItem implements XdmBinary, StreamableIte
     public Node asW3cNode() throws ParserConfigurationException, IOException, SAXException {
         return asW3cNode(null);
     }
+
+    @Override
+    public XMLStreamReader asXMLStreamReader() {
+        throw new UnsupportedOperationException("binary() cannot be read as XML events");
+    }
+
+    @Override
+    public void asSAX(ContentHandler handler) {
+        throw new UnsupportedOperationException("binary() cannot be read as XML events");
+    }
 }
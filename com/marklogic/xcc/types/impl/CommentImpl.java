@@ -21,9 +21,11 @@ import java.io.InputStream;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Comment;
 import org.w3c.dom.Node;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
 import com.marklogic.xcc.types.ValueType;
@@ -61,4 +63,14 @@ public class CommentImpl extends AbstractStreamableNodeItem implements XdmCommen
             SAXException {
         return asW3cComment(DocumentBuilderFactory.newInstance().newDocumentBuilder());
     }
+
+    @Override
+    public XMLStreamReader asXMLStreamReader() {
+        throw new UnsupportedOperationException("comment() cannot be read as XML events");
+    }
+
+    @Override
+    public void asSAX(ContentHandler handler) {
+        throw new UnsupportedOperationException("comment() cannot be read as XML events");
+    }
 }
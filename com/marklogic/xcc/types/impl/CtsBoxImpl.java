@@ -20,10 +20,10 @@ import com.marklogic.xcc.types.ValueType;
 
 public class CtsBoxImpl extends AbstractStringItem implements CtsBox {
     
-    private String south;
-    private String west;
-    private String north;
-    private String east;
+    private volatile String south;
+    private volatile String west;
+    private volatile String north;
+    private volatile String east;
     
     public CtsBoxImpl(String value) {
         super(ValueType.CTS_BOX, value);
@@ -21,8 +21,8 @@ import com.marklogic.xcc.types.ValueType;
 
 public class CtsCircleImpl extends AbstractStringItem implements CtsCircle {
     
-    private String radius;
-    private CtsPoint center;
+    private volatile String radius;
+    private volatile CtsPoint center;
     
     public CtsCircleImpl(String value) {
         super(ValueType.CTS_CIRCLE, value);
@@ -20,8 +20,8 @@ import com.marklogic.xcc.types.ValueType;
 
 public class CtsPointImpl extends AbstractStringItem implements CtsPoint {
     
-    private String latitude;
-    private String longitude;
+    private volatile String latitude;
+    private volatile String longitude;
     
     public CtsPointImpl(String value) {
         super(ValueType.CTS_POINT, value);
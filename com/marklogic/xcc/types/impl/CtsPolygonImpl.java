@@ -24,7 +24,7 @@ import com.marklogic.xcc.types.ValueType;
 
 public class CtsPolygonImpl extends AbstractStringItem implements CtsPolygon {
     
-    private List<CtsPoint> vertices;
+    private volatile List<CtsPoint> vertices;
     
     public CtsPolygonImpl(String value) {
         super(ValueType.CTS_POLYGON, value);
@@ -39,18 +39,20 @@ public class CtsPolygonImpl extends AbstractStringItem implements CtsPolygon {
         int count = 0;
         int i = 0;
         while ((i=value.indexOf(' ',i)+1)>0) count++;
-        vertices = new ArrayList<CtsPoint>(count);
+        // built up locally, other threads only ever see the complete list
+        List<CtsPoint> list = new ArrayList<CtsPoint>(count);
         
         i = 0;
         while (count-- > 0){
             int j = value.indexOf(' ',i);
-            vertices.add(new CtsPointImpl(value.substring(i,j)));
+            list.add(new CtsPointImpl(value.substring(i,j)));
             i = j+1;
         }
         
         if (i > 0) {
-            vertices.add(new CtsPointImpl(value.substring(i)));
+            list.add(new CtsPointImpl(value.substring(i)));
         }
+        vertices = list;
     }
     
     @Override
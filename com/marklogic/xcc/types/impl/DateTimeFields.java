@@ -0,0 +1,286 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.types.impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * The fields of an XSD date/time lexical value, scanned by hand. Only the canonical layouts are
+ * accepted: two digit month, day, hour, minute and second, a year of at least four digits, an
+ * optional fraction of a second and an optional <code>Z</code> or <code>&#177;hh:mm</code>
+ * timezone. Anything else makes {@link #parse(String, int)} return null, and callers fall back to
+ * the general, slower parse.
+ */
+final class DateTimeFields {
+    static final int DATE = 0;
+    static final int DATE_TIME = 1;
+    static final int TIME = 2;
+    static final int GDAY = 3;
+    static final int GMONTH = 4;
+    static final int GMONTH_DAY = 5;
+    static final int GYEAR = 6;
+    static final int GYEAR_MONTH = 7;
+
+    // fields a lexical value doesn't have keep the epoch defaults, as a cleared Calendar does
+    int year = 1970;
+    int month = 1;
+    int day = 1;
+    int hour = 0;
+    int minute = 0;
+    int second = 0;
+    int nano = 0;
+    int millis = 0;
+    boolean fourDigitYear = true;
+    boolean zoned = false;
+    int offsetSeconds = 0;
+    String zone = null;
+
+    private final String text;
+    private int pos = 0;
+
+    private DateTimeFields(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Scan a value of the given kind.
+     *
+     * @return The fields, or null if the value is not in canonical form.
+     */
+    static DateTimeFields parse(String str, int kind) {
+        DateTimeFields f = new DateTimeFields(str.trim());
+
+        return f.scan(kind) ? f : null;
+    }
+
+    LocalDate toLocalDate() {
+        return LocalDate.of(year, month, day);
+    }
+
+    LocalTime toLocalTime() {
+        return (hour == 24) ? LocalTime.MIDNIGHT : LocalTime.of(hour, minute, second, nano);
+    }
+
+    LocalDateTime toLocalDateTime() {
+        if (hour == 24) {
+            // 24:00:00 is the first instant of the following day
+            return LocalDate.of(year, month, day).plusDays(1).atStartOfDay();
+        }
+
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    // --------------------------------------------------------
+
+    private boolean scan(int kind) {
+        boolean ok;
+
+        switch (kind) {
+        case DATE:
+            ok = scanDate();
+            break;
+        case DATE_TIME:
+            ok = scanDate() && literal('T') && scanTime();
+            break;
+        case TIME:
+            ok = scanTime();
+            break;
+        case GDAY:
+            ok = literal('-') && literal('-') && literal('-') && (day = digits2()) != -1;
+            break;
+        case GMONTH:
+            ok = literal('-') && literal('-') && (month = digits2()) != -1;
+            break;
+        case GMONTH_DAY:
+            ok = literal('-') && literal('-') && (month = digits2()) != -1 && literal('-') && (day = digits2()) != -1;
+            break;
+        case GYEAR:
+            ok = scanYear();
+            break;
+        case GYEAR_MONTH:
+            ok = scanYear() && literal('-') && (month = digits2()) != -1;
+            break;
+        default:
+            ok = false;
+        }
+
+        return ok && scanZone() && inRange();
+    }
+
+    private boolean scanDate() {
+        return scanYear() && literal('-') && (month = digits2()) != -1 && literal('-') && (day = digits2()) != -1;
+    }
+
+    private boolean scanTime() {
+        if (((hour = digits2()) == -1) || !literal(':') || ((minute = digits2()) == -1) || !literal(':')
+                || ((second = digits2()) == -1)) {
+            return false;
+        }
+
+        if ((pos < text.length()) && (text.charAt(pos) == '.')) {
+            pos++;
+            scanFraction();
+        }
+
+        return true;
+    }
+
+    private boolean scanYear() {
+        boolean negative = literal('-');
+        int start = pos;
+        long value = 0;
+
+        while ((pos < text.length()) && isDigit(text.charAt(pos))) {
+            value = (value * 10) + (text.charAt(pos++) - '0');
+
+            if (value > 999999999L) {
+                return false;
+            }
+        }
+
+        int count = pos - start;
+
+        if ((count < 4) || ((count > 4) && (text.charAt(start) == '0'))) {
+            return false;
+        }
+
+        year = negative ? (int)-value : (int)value;
+        fourDigitYear = !negative && (count == 4);
+
+        return true;
+    }
+
+    // Nanoseconds are truncated, milliseconds rounded half up as they always have been
+    private void scanFraction() {
+        int start = pos;
+        int value = 0;
+
+        while ((pos < text.length()) && isDigit(text.charAt(pos))) {
+            int digit = text.charAt(pos) - '0';
+            int index = pos - start;
+
+            if (index < 9) {
+                value = (value * 10) + digit;
+            }
+
+            if ((index == 3) && (digit >= 5)) {
+                millis = 1;
+            }
+
+            pos++;
+        }
+
+        for (int i = pos - start; i < 9; i++) {
+            value *= 10;
+        }
+
+        nano = value;
+        millis += value / 1000000;
+    }
+
+    private boolean scanZone() {
+        int length = text.length();
+
+        if (pos == length) {
+            return true;
+        }
+
+        zone = text.substring(pos);
+
+        if ((pos == length - 1) && (text.charAt(pos) == 'Z')) {
+            zoned = true;
+
+            return true;
+        }
+
+        if (pos != length - 6) {
+            return false;
+        }
+
+        char sign = text.charAt(pos++);
+
+        if ((sign != '+') && (sign != '-')) {
+            return false;
+        }
+
+        int hours = digits2();
+
+        if ((hours == -1) || !literal(':')) {
+            return false;
+        }
+
+        int minutes = digits2();
+
+        if ((minutes == -1) || (hours > 14) || (minutes > 59)) {
+            return false;
+        }
+
+        offsetSeconds = ((hours * 60) + minutes) * 60;
+
+        if (sign == '-') {
+            offsetSeconds = -offsetSeconds;
+        }
+
+        zoned = true;
+
+        return true;
+    }
+
+    private boolean inRange() {
+        if ((month < 1) || (month > 12) || (day < 1) || (day > 31) || (minute > 59) || (second > 59)) {
+            return false;
+        }
+
+        if (hour == 24) {
+            return (minute == 0) && (second == 0) && (nano == 0);
+        }
+
+        return hour < 24;
+    }
+
+    private boolean literal(char c) {
+        if ((pos < text.length()) && (text.charAt(pos) == c)) {
+            pos++;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private int digits2() {
+        if (pos + 2 > text.length()) {
+            return -1;
+        }
+
+        char c1 = text.charAt(pos);
+        char c2 = text.charAt(pos + 1);
+
+        if (!isDigit(c1) || !isDigit(c2)) {
+            return -1;
+        }
+
+        pos += 2;
+
+        return ((c1 - '0') * 10) + (c2 - '0');
+    }
+
+    private static boolean isDigit(char c) {
+        return (c >= '0') && (c <= '9');
+    }
+}
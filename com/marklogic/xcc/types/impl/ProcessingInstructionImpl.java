@@ -21,9 +21,11 @@ import java.io.InputStream;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Node;
 import org.w3c.dom.ProcessingInstruction;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
 import com.marklogic.xcc.types.ValueType;
@@ -63,4 +65,14 @@ public class ProcessingInstructionImpl extends AbstractStreamableNodeItem implem
             SAXException {
         return asW3cProcessingInstruction(DocumentBuilderFactory.newInstance().newDocumentBuilder());
     }
+
+    @Override
+    public XMLStreamReader asXMLStreamReader() {
+        throw new UnsupportedOperationException("processing-instruction() cannot be read as XML events");
+    }
+
+    @Override
+    public void asSAX(ContentHandler handler) {
+        throw new UnsupportedOperationException("processing-instruction() cannot be read as XML events");
+    }
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.types.impl;
+
+import com.marklogic.xcc.types.XdmItem;
+
+/**
+ * An atomic item whose value can be replaced, so that one instance can stand for each item of a
+ * streaming result in turn.
+ *
+ * @see com.marklogic.xcc.RequestOptions#setStreamingItemReuse(boolean)
+ */
+public interface ReusableItem extends XdmItem {
+    /**
+     * Replace the value of this item with a lexical value that is known to be valid, such as one
+     * sent by the server. It is not parsed until a typed value is asked for.
+     */
+    void reuse(String value);
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.types.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import com.marklogic.io.IOHelper;
+import com.marklogic.xcc.types.AtomicType;
+import com.marklogic.xcc.types.ValueType;
+import com.marklogic.xcc.types.XdmValue;
+
+/**
+ * The value of an external variable, given as the UTF-8 bytes of its lexical form and read from
+ * a byte array, a file or a stream only as the request is sent. The bytes are form-urlencoded a
+ * buffer at a time as they are written, so the value is never held in memory as a String. A value
+ * read from a stream can only be sent once.
+ */
+public class StreamedValue implements XdmValue {
+    private final AtomicType type;
+    private final byte[] bytes;
+    private final File file;
+    private InputStream stream;
+    private final long length;
+
+    public StreamedValue(AtomicType type, byte[] bytes) {
+        this.type = type;
+        this.bytes = bytes;
+        this.file = null;
+        this.stream = null;
+        this.length = bytes.length;
+    }
+
+    public StreamedValue(AtomicType type, File file) {
+        this.type = type;
+        this.bytes = null;
+        this.file = file;
+        this.stream = null;
+        this.length = file.length();
+    }
+
+    /**
+     * @param length
+     *            The number of bytes the stream holds, or -1 if not known. If it is known, a
+     *            stream that ends early or runs long fails the request.
+     */
+    public StreamedValue(AtomicType type, InputStream stream, long length) {
+        this.type = type;
+        this.bytes = null;
+        this.file = null;
+        this.stream = stream;
+        this.length = length;
+    }
+
+    // -------------------------------------------------------
+
+    /**
+     * The number of bytes in the value, or -1 if not known.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Open the value for reading. The caller must close the stream.
+     *
+     * @throws IOException
+     *             If the value came from a stream which has already been read.
+     */
+    public synchronized InputStream openStream() throws IOException {
+        if (bytes != null) {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        if (file != null) {
+            return new FileInputStream(file);
+        }
+
+        if (stream == null) {
+            throw new IOException("Streamed variable value has already been sent");
+        }
+
+        InputStream s = stream;
+
+        stream = null;
+
+        return s;
+    }
+
+    // -------------------------------------------------------
+    // XdmValue interface
+
+    public ValueType getValueType() {
+        return type;
+    }
+
+    /**
+     * Read the whole value as a String. A value given as a stream is not read, as it could not be
+     * sent afterwards.
+     *
+     * @throws IllegalStateException
+     *             If the value is given as a stream.
+     * @throws UncheckedIOException
+     *             If the value cannot be read.
+     */
+    public String asString() {
+        if ((bytes == null) && (file == null)) {
+            throw new IllegalStateException("A streamed value given as an InputStream cannot be read as a String");
+        }
+
+        try {
+            InputStream is = openStream();
+
+            try {
+                return new String(IOHelper.byteArrayFromStream(is), StandardCharsets.UTF_8);
+            } finally {
+                is.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read streamed value: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StreamedValue: type=" + type + ", length=" + length;
+    }
+}
@@ -21,9 +21,11 @@ import java.io.InputStream;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Node;
 import org.w3c.dom.Text;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
 import com.marklogic.xcc.types.ValueType;
@@ -53,4 +55,14 @@ public class TextImpl extends AbstractStreamableNodeItem implements XdmText {
     public Node asW3cNode() throws ParserConfigurationException, IOException, SAXException {
         return asW3cText();
     }
+
+    @Override
+    public XMLStreamReader asXMLStreamReader() {
+        throw new UnsupportedOperationException("text() cannot be read as XML events");
+    }
+
+    @Override
+    public void asSAX(ContentHandler handler) {
+        throw new UnsupportedOperationException("text() cannot be read as XML events");
+    }
 }
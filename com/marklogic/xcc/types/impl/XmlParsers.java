@@ -0,0 +1,97 @@
+/*
+ * Copyright 2003-2013 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.xcc.types.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Per-thread, namespace aware parsers for reading node items as XML events. Factories are not
+ * guaranteed to be thread-safe, and finding the implementation class is slow, so each thread
+ * keeps its own. A SAX parser is reused from one parse to the next, unless a handler starts
+ * another parse on the same thread while the first is still running, in which case that one gets
+ * a parser of its own.
+ */
+final class XmlParsers {
+    private static final ThreadLocal<XMLInputFactory> inputFactory = new ThreadLocal<XMLInputFactory>() {
+        @Override
+        protected XMLInputFactory initialValue() {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+
+            factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+
+            return factory;
+        }
+    };
+
+    private static final ThreadLocal<SAXParserFactory> saxFactory = new ThreadLocal<SAXParserFactory>() {
+        @Override
+        protected SAXParserFactory initialValue() {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+
+            factory.setNamespaceAware(true);
+
+            return factory;
+        }
+    };
+
+    // a parser not currently in use by this thread, if there is one
+    private static final ThreadLocal<SAXParser> idleParser = new ThreadLocal<SAXParser>();
+
+    private XmlParsers() {
+    }
+
+    static XMLStreamReader newXMLStreamReader(Reader reader) throws XMLStreamException {
+        return inputFactory.get().createXMLStreamReader(reader);
+    }
+
+    static void parse(Reader reader, ContentHandler handler) throws IOException, SAXException {
+        SAXParser parser = idleParser.get();
+
+        if (parser == null) {
+            try {
+                parser = saxFactory.get().newSAXParser();
+            } catch (ParserConfigurationException e) {
+                throw new SAXException("Cannot create SAX parser: " + e.getMessage(), e);
+            }
+        } else {
+            idleParser.remove();
+        }
+
+        try {
+            XMLReader xmlReader = parser.getXMLReader();
+
+            xmlReader.setContentHandler(handler);
+            xmlReader.parse(new InputSource(reader));
+        } finally {
+            // don't hold on to the caller's handler
+            parser.reset();
+            idleParser.set(parser);
+        }
+    }
+}
@@ -22,11 +22,20 @@ import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSAnyURI;
 
 public class XsAnyUriImpl extends AbstractStringItem implements XSAnyURI {
+    private volatile URI uri;
+
     public XsAnyUriImpl(String value) {
         super(ValueType.XS_ANY_URI, value);
     }
 
     public URI asUri() throws URISyntaxException {
-        return (new URI(asString()));
+        URI result = uri;
+
+        if (result == null) {
+            result = new URI(asString());
+            uri = result;
+        }
+
+        return result;
     }
 }
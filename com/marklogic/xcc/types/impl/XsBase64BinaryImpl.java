@@ -21,9 +21,23 @@ import com.marklogic.xcc.types.XSBase64Binary;
 
 public class XsBase64BinaryImpl extends AbstractStringItem implements XSBase64Binary {
     public XsBase64BinaryImpl(String bodyString) {
+        this(bodyString, true);
+    }
+
+    private XsBase64BinaryImpl(String bodyString, boolean parseNow) {
         super(ValueType.XS_BASE64_BINARY, bodyString);
-        
-        Base64.decode(asString());
+
+        if (parseNow) {
+            Base64.decode(asString());
+        }
+    }
+
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsBase64BinaryImpl lazy(String bodyString) {
+        return new XsBase64BinaryImpl(bodyString, false);
     }
 
     public byte[] asBinaryData() {
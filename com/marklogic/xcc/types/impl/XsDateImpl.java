@@ -15,6 +15,7 @@
  */
 package com.marklogic.xcc.types.impl;
 
+import java.time.LocalDate;
 import java.util.Date;
 import java.util.Locale;
 import java.util.TimeZone;
@@ -23,13 +24,49 @@ import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSDate;
 
 public class XsDateImpl extends AbstractDateItem implements XSDate {
-    public XsDateImpl(String bodyString, TimeZone tz, Locale locale) {
-        super(ValueType.XS_DATE, bodyString, tz, locale);
+    // Conversions are made once, the mutable Date is copied on the way out
+    private volatile Date date;
+    private volatile LocalDate localDate;
 
-        dateFromDateString(bodyString); // will throw if string is not valid
+    public XsDateImpl(String bodyString, TimeZone timezone, Locale locale) {
+        this(bodyString, timezone, locale, true);
+    }
+
+    private XsDateImpl(String bodyString, TimeZone timezone, Locale locale, boolean parseNow) {
+        super(ValueType.XS_DATE, bodyString, timezone, locale);
+
+        if (parseNow) {
+            validateDateString(bodyString, DateTimeFields.DATE, DATE_FMT_STRING); // will throw if string is not valid
+        }
+    }
+
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsDateImpl lazy(String bodyString, TimeZone timezone, Locale locale) {
+        return new XsDateImpl(bodyString, timezone, locale, false);
     }
 
     public Date asDate() {
-        return dateFromDateString(asString());
+        Date result = date;
+
+        if (result == null) {
+            result = dateFromDateString(asString());
+            date = result;
+        }
+
+        return (Date)result.clone();
+    }
+
+    public LocalDate asLocalDate() {
+        LocalDate result = localDate;
+
+        if (result == null) {
+            result = localDateFromString(asString());
+            localDate = result;
+        }
+
+        return result;
     }
 }
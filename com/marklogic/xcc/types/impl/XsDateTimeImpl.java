@@ -15,6 +15,8 @@
  */
 package com.marklogic.xcc.types.impl;
 
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.Date;
 import java.util.Locale;
 import java.util.TimeZone;
@@ -23,13 +25,53 @@ import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSDateTime;
 
 public class XsDateTimeImpl extends AbstractDateItem implements XSDateTime {
+    // Conversions are made once, the mutable Date is copied on the way out
+    private volatile Date date;
+    private volatile OffsetDateTime offsetDateTime;
+
     public XsDateTimeImpl(String bodyString, TimeZone timezone, Locale locale) {
+        this(bodyString, timezone, locale, true);
+    }
+
+    private XsDateTimeImpl(String bodyString, TimeZone timezone, Locale locale, boolean parseNow) {
         super(ValueType.XS_DATE_TIME, bodyString, timezone, locale);
 
-        dateFromDateTimeString(bodyString); // will throw if string is not valid
+        if (parseNow) {
+            validateDateString(bodyString, DateTimeFields.DATE_TIME, DATETIME_FMT_STRING); // will throw if string is not valid
+        }
+    }
+
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsDateTimeImpl lazy(String bodyString, TimeZone timezone, Locale locale) {
+        return new XsDateTimeImpl(bodyString, timezone, locale, false);
     }
 
     public Date asDate() {
-        return dateFromDateTimeString(asString());
+        Date result = date;
+
+        if (result == null) {
+            result = dateFromDateTimeString(asString());
+            date = result;
+        }
+
+        return (Date)result.clone();
+    }
+
+    public OffsetDateTime asOffsetDateTime() {
+        OffsetDateTime result = offsetDateTime;
+
+        if (result == null) {
+            result = offsetDateTimeFromString(asString());
+            offsetDateTime = result;
+        }
+
+        return result;
+    }
+
+    public Instant asInstant() {
+        return asOffsetDateTime().toInstant();
     }
 }
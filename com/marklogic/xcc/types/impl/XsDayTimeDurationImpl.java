@@ -21,13 +21,28 @@ import com.marklogic.xcc.types.XdmDuration;
 
 public class XsDayTimeDurationImpl extends AbstractDurationItem implements XSDayTimeDuration {
     public XsDayTimeDurationImpl(String bodyString) {
-        super(ValueType.XS_DAY_TIME_DURATION, bodyString);
+        this(bodyString, true);
+    }
+
+    private XsDayTimeDurationImpl(String bodyString, boolean parseNow) {
+        super(ValueType.XS_DAY_TIME_DURATION, bodyString, parseNow);
+
+        if (!parseNow) {
+            return;
+        }
 
         XdmDuration duration = asDuration();
 
         if ((duration.getYears() != 0) || (duration.getMonths() != 0)) {
             throw new IllegalArgumentException("Only Day and Time values are allowed");
         }
+    }
 
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsDayTimeDurationImpl lazy(String bodyString) {
+        return new XsDayTimeDurationImpl(bodyString, false);
     }
 }
@@ -22,12 +22,26 @@ import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSDecimal;
 
 public class XsDecimalImpl extends AbstractStringItem implements XSDecimal {
-    private final BigDecimal value;
+    // Up to 18 digits always fits in a long
+    private static final int MAX_UNSCALED_DIGITS = 18;
+
+    // Short values are held as an unscaled long and a scale, the BigDecimal is made on demand.
+    // Set before parsed, which publishes them.
+    private long unscaledValue;
+    private int scale = -1;
+    private BigDecimal value;
+    private volatile boolean parsed = false;
 
     public XsDecimalImpl(String bodyString) {
+        this(bodyString, true);
+    }
+
+    private XsDecimalImpl(String bodyString, boolean parseNow) {
         super(ValueType.XS_DECIMAL, bodyString);
 
-        this.value = new BigDecimal(bodyString);
+        if (parseNow) {
+            parse(bodyString); // will throw if string is not valid
+        }
     }
 
     public XsDecimalImpl(Object value) {
@@ -36,13 +50,84 @@ public class XsDecimalImpl extends AbstractStringItem implements XSDecimal {
         if ((value instanceof Integer) || (value instanceof Long) || (value instanceof Double)
                 || (value instanceof Float) || (value instanceof BigDecimal) || (value instanceof BigInteger)
                 || (value instanceof String)) {
-            this.value = new BigDecimal(value.toString());
+            if (value instanceof BigDecimal) {
+                this.value = (BigDecimal)value;
+                this.parsed = true;
+            } else {
+                parse(value.toString());
+            }
         } else {
             throw new IllegalArgumentException("Cannot construct XSDecimal from " + value.getClass().getName());
         }
     }
 
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsDecimalImpl lazy(String bodyString) {
+        return new XsDecimalImpl(bodyString, false);
+    }
+
     public BigDecimal asBigDecimal() {
+        if (!parsed) {
+            parse(asString());
+        }
+
+        if (value == null) {
+            value = BigDecimal.valueOf(unscaledValue, scale);
+        }
+
         return value;
     }
+
+    // -------------------------------------------------
+
+    private void parse(String str) {
+        if (!parseUnscaled(str)) {
+            this.value = new BigDecimal(str);
+        }
+
+        this.parsed = true;
+    }
+
+    // Accept [+-]digits[.digits] with at least one digit, at most 18 in all
+    private boolean parseUnscaled(String str) {
+        int length = str.length();
+        int i = 0;
+        boolean negative = false;
+
+        if ((length > 0) && ((str.charAt(0) == '-') || (str.charAt(0) == '+'))) {
+            negative = (str.charAt(0) == '-');
+            i++;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int point = -1;
+
+        for (; i < length; i++) {
+            char c = str.charAt(i);
+
+            if ((c == '.') && (point == -1)) {
+                point = digits;
+                continue;
+            }
+
+            if ((c < '0') || (c > '9') || (++digits > MAX_UNSCALED_DIGITS)) {
+                return false;
+            }
+
+            unscaled = (unscaled * 10) + (c - '0');
+        }
+
+        if (digits == 0) {
+            return false;
+        }
+
+        this.unscaledValue = (negative) ? -unscaled : unscaled;
+        this.scale = (point == -1) ? 0 : (digits - point);
+
+        return true;
+    }
 }
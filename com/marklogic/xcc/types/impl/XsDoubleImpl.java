@@ -21,28 +21,22 @@ import java.math.BigInteger;
 import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSDouble;
 
-public class XsDoubleImpl extends AbstractStringItem implements XSDouble {
-    private final Double value;
-    private final BigDecimal bigDecimalValue;
-    private final NumberFormatException formatException;
+public class XsDoubleImpl extends AbstractStringItem implements XSDouble, ReusableItem {
+    // Set before parsed, which publishes it
+    private double value;
+    private volatile boolean parsed = false;
+    private BigDecimal bigDecimalValue;
 
     public XsDoubleImpl(String bodyString) {
-        super(ValueType.XS_DOUBLE, bodyString);
-
-        this.value = Double.valueOf(scrubbedFloatValue(bodyString));
+        this(bodyString, true);
+    }
 
-        BigDecimal tmpBigDecimal = null;
-        NumberFormatException tmpEx = null;
+    private XsDoubleImpl(String bodyString, boolean parseNow) {
+        super(ValueType.XS_DOUBLE, bodyString);
 
-        try {
-            tmpBigDecimal = new BigDecimal(bodyString);
-        } catch (NumberFormatException e) {
-            // Double value parsed, must be NaN or +-INF, leave as null
-            tmpEx = e;
+        if (parseNow) {
+            parse(); // will throw if string is not valid
         }
-
-        this.bigDecimalValue = tmpBigDecimal;
-        this.formatException = tmpEx;
     }
 
     public XsDoubleImpl(Object value) {
@@ -51,37 +45,52 @@ public class XsDoubleImpl extends AbstractStringItem implements XSDouble {
         if ((value instanceof Integer) || (value instanceof Long) || (value instanceof Double)
                 || (value instanceof Float) || (value instanceof BigDecimal) || (value instanceof BigInteger)
                 || (value instanceof String)) {
-            this.value = new Double(value.toString());
-
-            BigDecimal tmpBigDecimal = null;
-            NumberFormatException tmpEx = null;
-
-            try {
-                tmpBigDecimal = new BigDecimal(value.toString());
-            } catch (NumberFormatException e) {
-                tmpEx = e;
-            }
-
-            this.bigDecimalValue = tmpBigDecimal;
-            this.formatException = tmpEx;
+            this.value = Double.parseDouble(value.toString());
+            this.parsed = true;
         } else {
             throw new IllegalArgumentException("Cannot construct XSDouble from " + value.getClass().getName());
         }
     }
 
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsDoubleImpl lazy(String bodyString) {
+        return new XsDoubleImpl(bodyString, false);
+    }
+
+    public void reuse(String bodyString) {
+        super.value = bodyString;
+        this.bigDecimalValue = null;
+        this.parsed = false;
+    }
+
     public Double asDouble() {
-        return (value);
+        return Double.valueOf(asPrimitiveDouble());
     }
 
     public double asPrimitiveDouble() {
-        return value.doubleValue();
+        if (!parsed) {
+            parse();
+        }
+
+        return value;
     }
 
+    // Made from the lexical value on first use, NaN and +-INF have none and throw
     public BigDecimal asBigDecimal() {
         if (bigDecimalValue == null) {
-            throw formatException;
+            bigDecimalValue = new BigDecimal(asString());
         }
 
         return bigDecimalValue;
     }
+
+    // -------------------------------------------------
+
+    private void parse() {
+        this.value = Double.parseDouble(scrubbedFloatValue(asString()));
+        this.parsed = true;
+    }
 }
@@ -22,4 +22,16 @@ public class XsDurationImpl extends AbstractDurationItem implements XSDuration {
     public XsDurationImpl(String bodyString) {
         super(ValueType.XS_DURATION, bodyString);
     }
+
+    private XsDurationImpl(String bodyString, boolean parseNow) {
+        super(ValueType.XS_DURATION, bodyString, parseNow);
+    }
+
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsDurationImpl lazy(String bodyString) {
+        return new XsDurationImpl(bodyString, false);
+    }
 }
@@ -22,27 +22,21 @@ import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSFloat;
 
 public class XsFloatImpl extends AbstractStringItem implements XSFloat {
-    private final Float value;
-    private final BigDecimal bigDecimalValue;
-    private final NumberFormatException formatException;
+    // Set before parsed, which publishes it
+    private float value;
+    private volatile boolean parsed = false;
+    private BigDecimal bigDecimalValue;
 
     public XsFloatImpl(String bodyString) {
-        super(ValueType.XS_FLOAT, bodyString);
-
-        this.value = Float.valueOf(scrubbedFloatValue(bodyString));
+        this(bodyString, true);
+    }
 
-        BigDecimal tmpBigDecimal = null;
-        NumberFormatException tmpEx = null;
+    private XsFloatImpl(String bodyString, boolean parseNow) {
+        super(ValueType.XS_FLOAT, bodyString);
 
-        try {
-            tmpBigDecimal = new BigDecimal(bodyString);
-        } catch (NumberFormatException e) {
-            // Float value parsed, must be NaN or +-INF, leave as null
-            tmpEx = e;
+        if (parseNow) {
+            parse(); // will throw if string is not valid
         }
-
-        this.bigDecimalValue = tmpBigDecimal;
-        this.formatException = tmpEx;
     }
 
     public XsFloatImpl(Object value) {
@@ -51,37 +45,46 @@ public class XsFloatImpl extends AbstractStringItem implements XSFloat {
         if ((value instanceof Integer) || (value instanceof Long) || (value instanceof Double)
                 || (value instanceof Float) || (value instanceof BigDecimal) || (value instanceof BigInteger)
                 || (value instanceof String)) {
-            this.value = new Float(value.toString());
-
-            BigDecimal tmpBigDecimal = null;
-            NumberFormatException tmpEx = null;
-
-            try {
-                tmpBigDecimal = new BigDecimal(value.toString());
-            } catch (NumberFormatException e) {
-                tmpEx = e;
-            }
-
-            this.bigDecimalValue = tmpBigDecimal;
-            this.formatException = tmpEx;
+            this.value = Float.parseFloat(value.toString());
+            this.parsed = true;
         } else {
             throw new IllegalArgumentException("Cannot construct XSFloat from " + value.getClass().getName());
         }
     }
 
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsFloatImpl lazy(String bodyString) {
+        return new XsFloatImpl(bodyString, false);
+    }
+
     public Float asFloat() {
-        return value;
+        return Float.valueOf(asPrimitiveFloat());
     }
 
     public float asPrimitiveFloat() {
-        return value.floatValue();
+        if (!parsed) {
+            parse();
+        }
+
+        return value;
     }
 
+    // Made from the lexical value on first use, NaN and +-INF have none and throw
     public BigDecimal asBigDecimal() {
         if (bigDecimalValue == null) {
-            throw formatException;
+            bigDecimalValue = new BigDecimal(asString());
         }
 
         return bigDecimalValue;
     }
+
+    // -------------------------------------------------
+
+    private void parse() {
+        this.value = Float.parseFloat(scrubbedFloatValue(asString()));
+        this.parsed = true;
+    }
 }
@@ -23,13 +23,37 @@ import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSGDay;
 
 public class XsGDayImpl extends AbstractDateItem implements XSGDay {
+    // Made once, the mutable calendar is copied on the way out
+    private volatile GregorianCalendar calendar;
+
     public XsGDayImpl(String bodyString, TimeZone timezone, Locale locale) {
+        this(bodyString, timezone, locale, true);
+    }
+
+    private XsGDayImpl(String bodyString, TimeZone timezone, Locale locale, boolean parseNow) {
         super(ValueType.XS_GDAY, bodyString, timezone, locale);
 
-        gCalFromGDayString(bodyString);
+        if (parseNow) {
+            validateDateString(bodyString, DateTimeFields.GDAY, GDAY_FMT_STRING);
+        }
+    }
+
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsGDayImpl lazy(String bodyString, TimeZone timezone, Locale locale) {
+        return new XsGDayImpl(bodyString, timezone, locale, false);
     }
 
     public GregorianCalendar asGregorianCalendar() {
-        return gCalFromGDayString(asString());
+        GregorianCalendar result = calendar;
+
+        if (result == null) {
+            result = gCalFromGDayString(asString());
+            calendar = result;
+        }
+
+        return (GregorianCalendar)result.clone();
     }
 }
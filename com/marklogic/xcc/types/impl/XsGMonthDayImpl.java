@@ -23,13 +23,37 @@ import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSGMonthDay;
 
 public class XsGMonthDayImpl extends AbstractDateItem implements XSGMonthDay {
+    // Made once, the mutable calendar is copied on the way out
+    private volatile GregorianCalendar calendar;
+
     public XsGMonthDayImpl(String bodyString, TimeZone timezone, Locale locale) {
+        this(bodyString, timezone, locale, true);
+    }
+
+    private XsGMonthDayImpl(String bodyString, TimeZone timezone, Locale locale, boolean parseNow) {
         super(ValueType.XS_GMONTH_DAY, bodyString, timezone, locale);
 
-        gCalFromGMonthDayString(bodyString);
+        if (parseNow) {
+            validateDateString(bodyString, DateTimeFields.GMONTH_DAY, GMONTHDAY_FMT_STRING);
+        }
+    }
+
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsGMonthDayImpl lazy(String bodyString, TimeZone timezone, Locale locale) {
+        return new XsGMonthDayImpl(bodyString, timezone, locale, false);
     }
 
     public GregorianCalendar asGregorianCalendar() {
-        return gCalFromGMonthDayString(asString());
+        GregorianCalendar result = calendar;
+
+        if (result == null) {
+            result = gCalFromGMonthDayString(asString());
+            calendar = result;
+        }
+
+        return (GregorianCalendar)result.clone();
     }
 }
@@ -23,13 +23,37 @@ import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSGMonth;
 
 public class XsGMonthImpl extends AbstractDateItem implements XSGMonth {
+    // Made once, the mutable calendar is copied on the way out
+    private volatile GregorianCalendar calendar;
+
     public XsGMonthImpl(String bodyString, TimeZone timezone, Locale locale) {
+        this(bodyString, timezone, locale, true);
+    }
+
+    private XsGMonthImpl(String bodyString, TimeZone timezone, Locale locale, boolean parseNow) {
         super(ValueType.XS_GMONTH, bodyString, timezone, locale);
 
-        gCalFromGMonthString(bodyString);
+        if (parseNow) {
+            validateDateString(bodyString, DateTimeFields.GMONTH, GMONTH_FMT_STRING);
+        }
+    }
+
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsGMonthImpl lazy(String bodyString, TimeZone timezone, Locale locale) {
+        return new XsGMonthImpl(bodyString, timezone, locale, false);
     }
 
     public GregorianCalendar asGregorianCalendar() {
-        return gCalFromGMonthString(asString());
+        GregorianCalendar result = calendar;
+
+        if (result == null) {
+            result = gCalFromGMonthString(asString());
+            calendar = result;
+        }
+
+        return (GregorianCalendar)result.clone();
     }
 }
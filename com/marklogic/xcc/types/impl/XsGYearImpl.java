@@ -23,13 +23,37 @@ import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSGYear;
 
 public class XsGYearImpl extends AbstractDateItem implements XSGYear {
+    // Made once, the mutable calendar is copied on the way out
+    private volatile GregorianCalendar calendar;
+
     public XsGYearImpl(String bodyString, TimeZone timezone, Locale locale) {
+        this(bodyString, timezone, locale, true);
+    }
+
+    private XsGYearImpl(String bodyString, TimeZone timezone, Locale locale, boolean parseNow) {
         super(ValueType.XS_GYEAR, bodyString, timezone, locale);
 
-        gCalFromGYearString(bodyString);
+        if (parseNow) {
+            validateDateString(bodyString, DateTimeFields.GYEAR, GYEAR_FMT_STRING);
+        }
+    }
+
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsGYearImpl lazy(String bodyString, TimeZone timezone, Locale locale) {
+        return new XsGYearImpl(bodyString, timezone, locale, false);
     }
 
     public GregorianCalendar asGregorianCalendar() {
-        return gCalFromGYearString(asString());
+        GregorianCalendar result = calendar;
+
+        if (result == null) {
+            result = gCalFromGYearString(asString());
+            calendar = result;
+        }
+
+        return (GregorianCalendar)result.clone();
     }
 }
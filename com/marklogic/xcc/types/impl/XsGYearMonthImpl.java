@@ -23,13 +23,37 @@ import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSGYearMonth;
 
 public class XsGYearMonthImpl extends AbstractDateItem implements XSGYearMonth {
+    // Made once, the mutable calendar is copied on the way out
+    private volatile GregorianCalendar calendar;
+
     public XsGYearMonthImpl(String bodyString, TimeZone timezone, Locale locale) {
+        this(bodyString, timezone, locale, true);
+    }
+
+    private XsGYearMonthImpl(String bodyString, TimeZone timezone, Locale locale, boolean parseNow) {
         super(ValueType.XS_GYEAR_MONTH, bodyString, timezone, locale);
 
-        gCalFromGYearMonthString(bodyString);
+        if (parseNow) {
+            validateDateString(bodyString, DateTimeFields.GYEAR_MONTH, GYEARMONTH_FMT_STRING);
+        }
+    }
+
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsGYearMonthImpl lazy(String bodyString, TimeZone timezone, Locale locale) {
+        return new XsGYearMonthImpl(bodyString, timezone, locale, false);
     }
 
     public GregorianCalendar asGregorianCalendar() {
-        return gCalFromGYearMonthString(asString());
+        GregorianCalendar result = calendar;
+
+        if (result == null) {
+            result = gCalFromGYearMonthString(asString());
+            calendar = result;
+        }
+
+        return (GregorianCalendar)result.clone();
     }
 }
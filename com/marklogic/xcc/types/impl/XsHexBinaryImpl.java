@@ -20,15 +20,29 @@ import com.marklogic.xcc.types.XSHexBinary;
 
 public class XsHexBinaryImpl extends AbstractStringItem implements XSHexBinary {
     public XsHexBinaryImpl(String bodyString) {
+        this(bodyString, true);
+    }
+
+    private XsHexBinaryImpl(String bodyString, boolean parseNow) {
         super(ValueType.XS_HEX_BINARY, bodyString);
 
-        validateHex(bodyString);
+        if (parseNow) {
+            validateHex(bodyString);
+        }
     }
 
     public XsHexBinaryImpl(byte[] body) {
         super(ValueType.XS_HEX_BINARY, convertBinaryToHex(body));
     }
 
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsHexBinaryImpl lazy(String bodyString) {
+        return new XsHexBinaryImpl(bodyString, false);
+    }
+
     public byte[] asBinaryData() {
         return (convertHexToBinary(asString()));
     }
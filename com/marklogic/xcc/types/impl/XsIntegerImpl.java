@@ -20,43 +20,193 @@ import java.math.BigInteger;
 import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSInteger;
 
-public class XsIntegerImpl extends AbstractStringItem implements XSInteger {
-    private BigInteger value;
+public class XsIntegerImpl extends AbstractStringItem implements XSInteger, ReusableItem {
+    // Up to 18 digits always fits in a long
+    private static final int MAX_LONG_DIGITS = 18;
+
+    // Set by parse() before parsed, which publishes them
+    private boolean fitsLong;
+    private long longValue;
+    private BigInteger bigValue;
+    private volatile boolean parsed = false;
 
     public XsIntegerImpl(String value) {
+        this(value, true);
+    }
+
+    private XsIntegerImpl(String value, boolean parseNow) {
         super(ValueType.XS_INTEGER, value);
 
-        this.value = new BigInteger(value);
+        if (parseNow) {
+            parse(); // will throw if string is not valid
+        }
+    }
+
+    /**
+     * Construct from a primitive value. The string value is only created if asked for.
+     */
+    public XsIntegerImpl(long value) {
+        super(ValueType.XS_INTEGER, null);
+
+        this.fitsLong = true;
+        this.longValue = value;
+        this.parsed = true;
     }
 
     public XsIntegerImpl(Object value) {
         super(ValueType.XS_INTEGER, value.toString());
 
-        if ((value instanceof Integer) || (value instanceof Long) || (value instanceof BigInteger)
-                || (value instanceof String)) {
-            this.value = new BigInteger(value.toString());
+        if ((value instanceof Integer) || (value instanceof Long)) {
+            this.fitsLong = true;
+            this.longValue = ((Number)value).longValue();
+            this.parsed = true;
+        } else if (value instanceof BigInteger) {
+            setBigValue((BigInteger)value);
+            this.parsed = true;
+        } else if (value instanceof String) {
+            parse();
         } else {
             throw new IllegalArgumentException("Cannot construct XSInteger from " + value.getClass().getName());
         }
     }
 
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsIntegerImpl lazy(String value) {
+        return new XsIntegerImpl(value, false);
+    }
+
+    public void reuse(String value) {
+        this.value = value;
+        this.bigValue = null;
+        this.parsed = false;
+    }
+
+    /**
+     * Replace the value of this item with a primitive value, as {@link #XsIntegerImpl(long)}
+     * would construct it.
+     */
+    public void reuse(long value) {
+        this.value = null;
+        this.bigValue = null;
+        this.fitsLong = true;
+        this.longValue = value;
+        this.parsed = true;
+    }
+
+    @Override
+    public String asString() {
+        if (value == null) {
+            value = Long.toString(longValue);
+        }
+
+        return value;
+    }
+
     public BigInteger asBigInteger() {
-        return (value);
+        if (!parsed) {
+            parse();
+        }
+
+        if (bigValue == null) {
+            bigValue = BigInteger.valueOf(longValue);
+        }
+
+        return (bigValue);
     }
 
     public Long asLong() {
-        return new Long(value.longValue());
+        return Long.valueOf(asPrimitiveLong());
     }
 
     public long asPrimitiveLong() {
-        return value.longValue();
+        if (!parsed) {
+            parse();
+        }
+
+        return longValue;
+    }
+
+    /**
+     * Whether the value is within the range of a long, so that {@link #asPrimitiveLong()} is
+     * exact. Unlike testing {@link #asBigInteger()}, this makes no BigInteger for a value that fits.
+     */
+    public boolean fitsLong() {
+        if (!parsed) {
+            parse();
+        }
+
+        return fitsLong;
     }
 
     public Integer asInteger() {
+        long primitive = asPrimitiveLong();
+
+        if (fitsLong && (primitive >= Integer.MIN_VALUE) && (primitive <= Integer.MAX_VALUE)) {
+            return Integer.valueOf((int)primitive);
+        }
+
+        // out of range, let Integer report it
         return Integer.valueOf(asString());
     }
 
     public int asPrimitiveInt() {
         return (int)asPrimitiveLong();
     }
+
+    // -------------------------------------------------
+
+    private void parse() {
+        long parsedLong = parseLong(value);
+
+        if (parsedLong != Long.MIN_VALUE) {
+            this.fitsLong = true;
+            this.longValue = parsedLong;
+        } else {
+            setBigValue(new BigInteger(value));
+        }
+
+        this.parsed = true;
+    }
+
+    private void setBigValue(BigInteger big) {
+        this.bigValue = big;
+        this.fitsLong = (big.bitLength() < 64);
+        this.longValue = big.longValue();
+    }
+
+    /**
+     * Parse a plain, short run of ASCII digits with an optional sign. Returns Long.MIN_VALUE for
+     * anything else, which is left to BigInteger.
+     */
+    private static long parseLong(String str) {
+        int length = str.length();
+        int i = 0;
+        boolean negative = false;
+
+        if ((length > 0) && ((str.charAt(0) == '-') || (str.charAt(0) == '+'))) {
+            negative = (str.charAt(0) == '-');
+            i++;
+        }
+
+        if ((i == length) || ((length - i) > MAX_LONG_DIGITS)) {
+            return Long.MIN_VALUE;
+        }
+
+        long value = 0;
+
+        for (; i < length; i++) {
+            int digit = str.charAt(i) - '0';
+
+            if ((digit < 0) || (digit > 9)) {
+                return Long.MIN_VALUE;
+            }
+
+            value = (value * 10) + digit;
+        }
+
+        return (negative) ? -value : value;
+    }
 }
@@ -18,8 +18,12 @@ package com.marklogic.xcc.types.impl;
 import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSString;
 
-public class XsStringImpl extends AbstractStringItem implements XSString {
+public class XsStringImpl extends AbstractStringItem implements XSString, ReusableItem {
     public XsStringImpl(String value) {
         super(ValueType.XS_STRING, value);
     }
+
+    public void reuse(String value) {
+        this.value = value;
+    }
 }
@@ -15,6 +15,7 @@
  */
 package com.marklogic.xcc.types.impl;
 
+import java.time.LocalTime;
 import java.util.Date;
 import java.util.Locale;
 import java.util.TimeZone;
@@ -23,13 +24,49 @@ import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSTime;
 
 public class XsTimeImpl extends AbstractDateItem implements XSTime {
+    // Conversions are made once, the mutable Date is copied on the way out
+    private volatile Date date;
+    private volatile LocalTime localTime;
+
     public XsTimeImpl(String bodyString, TimeZone timezone, Locale locale) {
+        this(bodyString, timezone, locale, true);
+    }
+
+    private XsTimeImpl(String bodyString, TimeZone timezone, Locale locale, boolean parseNow) {
         super(ValueType.XS_TIME, bodyString, timezone, locale);
 
-        dateFromTimeString(bodyString); // will throw if string is not valid
+        if (parseNow) {
+            validateDateString(bodyString, DateTimeFields.TIME, TIME_FMT_STRING); // will throw if string is not valid
+        }
+    }
+
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsTimeImpl lazy(String bodyString, TimeZone timezone, Locale locale) {
+        return new XsTimeImpl(bodyString, timezone, locale, false);
     }
 
     public Date asDate() {
-        return dateFromTimeString(asString());
+        Date result = date;
+
+        if (result == null) {
+            result = dateFromTimeString(asString());
+            date = result;
+        }
+
+        return (Date)result.clone();
+    }
+
+    public LocalTime asLocalTime() {
+        LocalTime result = localTime;
+
+        if (result == null) {
+            result = localTimeFromString(asString());
+            localTime = result;
+        }
+
+        return result;
     }
 }
@@ -18,8 +18,12 @@ package com.marklogic.xcc.types.impl;
 import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XSUntypedAtomic;
 
-public class XsUntypedAtomicImpl extends AbstractStringItem implements XSUntypedAtomic {
+public class XsUntypedAtomicImpl extends AbstractStringItem implements XSUntypedAtomic, ReusableItem {
     public XsUntypedAtomicImpl(String bodyString) {
         super(ValueType.XS_UNTYPED_ATOMIC, bodyString);
     }
+
+    public void reuse(String value) {
+        this.value = value;
+    }
 }
@@ -23,7 +23,15 @@ import com.marklogic.xcc.types.XdmDuration;
 
 public class XsYearMonthDurationImpl extends AbstractDurationItem implements XSYearMonthDuration {
     public XsYearMonthDurationImpl(String bodyString) {
-        super(ValueType.XS_YEAR_MONTH_DURATION, bodyString);
+        this(bodyString, true);
+    }
+
+    private XsYearMonthDurationImpl(String bodyString, boolean parseNow) {
+        super(ValueType.XS_YEAR_MONTH_DURATION, bodyString, parseNow);
+
+        if (!parseNow) {
+            return;
+        }
 
         XdmDuration duration = asDuration();
 
@@ -32,4 +40,12 @@ public class XsYearMonthDurationImpl extends AbstractDurationItem implements XSY
             throw new IllegalArgumentException("Only Year and Month values are allowed");
         }
     }
+
+    /**
+     * Construct from a lexical value that is known to be valid, such as one sent by the server.
+     * It is not parsed until a typed value is asked for.
+     */
+    public static XsYearMonthDurationImpl lazy(String bodyString) {
+        return new XsYearMonthDurationImpl(bodyString, false);
+    }
 }